@@ -0,0 +1,92 @@
+package com.example.learning.benchmark;
+
+import com.example.learning.entity.Employee;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.LocalCacheScope;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 基准测试用的嵌入式数据库
+ * 使用H2的MySQL兼容模式，加载与生产相同的建表脚本和Mapper XML，
+ * 这样测出来的是我们自己的SQL，而不是为测试改写过的SQL
+ */
+public class BenchmarkDatabase {
+
+    private final DataSource dataSource;
+
+    private final SqlSessionFactory sqlSessionFactory;
+
+    public BenchmarkDatabase(String name) throws SQLException, IOException {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource();
+        dataSource.setDriverClassName("org.h2.Driver");
+        dataSource.setUrl("jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        this.dataSource = dataSource;
+
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("employee.sql"));
+        }
+
+        Configuration configuration = new Configuration(
+            new Environment(name, new JdbcTransactionFactory(), dataSource));
+        configuration.setMapUnderscoreToCamelCase(true);
+        // 和Spring中一样不跨语句缓存查询结果，否则重复执行同一个查询测到的只是一级缓存
+        configuration.setLocalCacheScope(LocalCacheScope.STATEMENT);
+        configuration.getTypeAliasRegistry().registerAliases("com.example.learning.entity");
+        try (InputStream mapperXml = new ClassPathResource("mapper/EmployeeMapper.xml").getInputStream()) {
+            new XMLMapperBuilder(mapperXml, configuration, "mapper/EmployeeMapper.xml",
+                configuration.getSqlFragments()).parse();
+        }
+        this.sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+    }
+
+    public SqlSessionFactory getSqlSessionFactory() {
+        return sqlSessionFactory;
+    }
+
+    /**
+     * 清空员工表，让每一轮测试从相同的状态开始
+     */
+    public void clear() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE TABLE employees");
+        }
+    }
+
+    /**
+     * 生成一条确定性的测试员工数据
+     */
+    public static Employee sampleEmployee(int userId) {
+        Employee employee = new Employee();
+        employee.setUserId(userId);
+        employee.setFirstName("First" + userId);
+        employee.setLastName("Last" + (userId % 1000));
+        employee.setSalary(BigDecimal.valueOf(300000 + (userId % 500000), 2));
+        employee.setCurrency(userId % 2 == 0 ? "CNY" : "USD");
+        employee.setBirthdate(LocalDate.of(1970, 1, 1).plusDays(userId % 15000));
+        employee.setIsActive(userId % 3 != 0);
+        employee.setLevel((byte) (userId % 13));
+        LocalDateTime now = LocalDateTime.now();
+        employee.setCreatedAt(now);
+        employee.setUpdatedAt(now);
+        return employee;
+    }
+}
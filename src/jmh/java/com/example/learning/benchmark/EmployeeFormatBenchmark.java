@@ -0,0 +1,133 @@
+package com.example.learning.benchmark;
+
+import com.example.learning.entity.Employee;
+import com.example.learning.format.EmployeeAvroWriter;
+import com.example.learning.projection.EmployeeField;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 员工列表响应格式的基准测试
+ * 比较1万名员工用JSON（以及gzip压缩后）、Smile、CBOR、Avro输出时的耗时，
+ * 各格式输出的字节数在准备数据时打印
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmployeeFormatBenchmark {
+
+    private static final int EMPLOYEES = 10_000;
+
+    private static final String[] CURRENCIES = {"USD", "EUR", "CNY", "JPY"};
+
+    private ObjectMapper jsonMapper;
+
+    private ObjectMapper smileMapper;
+
+    private ObjectMapper cborMapper;
+
+    private EmployeeAvroWriter avroWriter;
+
+    private List<Employee> employees;
+
+    @Setup
+    public void setUp() throws IOException {
+        // 和Spring Boot自动配置的ObjectMapper一样支持java.time类型
+        jsonMapper = mapper(new ObjectMapper());
+        smileMapper = mapper(new ObjectMapper(new SmileFactory()));
+        cborMapper = mapper(new ObjectMapper(new CBORFactory()));
+        try (InputStream in = new ClassPathResource("avro/employee.avsc").getInputStream()) {
+            avroWriter = new EmployeeAvroWriter(StreamUtils.copyToString(in, StandardCharsets.UTF_8));
+        }
+
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 0, 0);
+        employees = new ArrayList<>(EMPLOYEES);
+        for (int i = 1; i <= EMPLOYEES; i++) {
+            Employee employee = new Employee();
+            employee.setUserId(i);
+            employee.setFirstName("First" + random.nextInt(1000));
+            employee.setLastName("Last" + random.nextInt(5000));
+            employee.setSalary(BigDecimal.valueOf(3_000_000 + random.nextInt(20_000_000), 2));
+            employee.setCurrency(CURRENCIES[random.nextInt(CURRENCIES.length)]);
+            employee.setBirthdate(LocalDate.of(1960, 1, 1).plusDays(random.nextInt(15_000)));
+            employee.setIsActive(random.nextBoolean());
+            employee.setLevel((byte) random.nextInt(10));
+            employee.setCreatedAt(now.minusMinutes(random.nextInt(1_000_000)));
+            employee.setUpdatedAt(now);
+            employees.add(employee);
+        }
+
+        System.out.printf("%n%d名员工: json=%d, json+gzip=%d, smile=%d, cbor=%d, avro=%d 字节%n", EMPLOYEES,
+            json().length, jsonGzip().length, smile().length, cbor().length, avro().length);
+    }
+
+    private static ObjectMapper mapper(ObjectMapper mapper) {
+        return mapper.registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .setFilterProvider(EmployeeField.ALL_FIELDS);
+    }
+
+    @Benchmark
+    public byte[] json() throws IOException {
+        return jsonMapper.writeValueAsBytes(employees);
+    }
+
+    @Benchmark
+    public byte[] jsonGzip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            jsonMapper.writeValue(gzip, employees);
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] smile() throws IOException {
+        return smileMapper.writeValueAsBytes(employees);
+    }
+
+    @Benchmark
+    public byte[] cbor() throws IOException {
+        return cborMapper.writeValueAsBytes(employees);
+    }
+
+    @Benchmark
+    public byte[] avro() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        avroWriter.write(employees, Collections.emptyMap(), out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.learning.benchmark;
+
+import com.example.learning.entity.Employee;
+import com.example.learning.mapper.EmployeeMapper;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 写入路径基准测试
+ * 对比逐条 insert、JDBC批处理（ExecutorType.BATCH）和多行 insertBatch 写入 ROWS 条记录的耗时
+ * 每次调用之前清空表，所以用单次执行模式测量一次完整的写入
+ * 逐条 insert 和 batchSize 无关，每个 batchSize 都会重复测一遍
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmployeeInsertBenchmark {
+
+    private static final int ROWS = 50_000;
+
+    @Param({"100", "500", "1000"})
+    private int batchSize;
+
+    private BenchmarkDatabase database;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        database = new BenchmarkDatabase("jmh_insert");
+    }
+
+    @Setup(Level.Invocation)
+    public void clear() throws SQLException {
+        database.clear();
+    }
+
+    @Benchmark
+    public void singleRowInsert() {
+        try (SqlSession session = database.getSqlSessionFactory().openSession(false)) {
+            EmployeeMapper mapper = session.getMapper(EmployeeMapper.class);
+            for (int id = 1; id <= ROWS; id++) {
+                mapper.insert(BenchmarkDatabase.sampleEmployee(id));
+            }
+            session.commit();
+        }
+    }
+
+    @Benchmark
+    public void jdbcBatchInsert() {
+        try (SqlSession session = database.getSqlSessionFactory().openSession(ExecutorType.BATCH, false)) {
+            EmployeeMapper mapper = session.getMapper(EmployeeMapper.class);
+            for (int id = 1; id <= ROWS; id++) {
+                mapper.insert(BenchmarkDatabase.sampleEmployee(id));
+                if (id % batchSize == 0) {
+                    session.flushStatements();
+                }
+            }
+            session.commit();
+        }
+    }
+
+    @Benchmark
+    public void multiRowInsert() {
+        try (SqlSession session = database.getSqlSessionFactory().openSession(false)) {
+            EmployeeMapper mapper = session.getMapper(EmployeeMapper.class);
+            List<Employee> chunk = new ArrayList<>(batchSize);
+            for (int id = 1; id <= ROWS; id++) {
+                chunk.add(BenchmarkDatabase.sampleEmployee(id));
+                if (chunk.size() == batchSize) {
+                    mapper.insertBatch(chunk);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                mapper.insertBatch(chunk);
+            }
+            session.commit();
+        }
+    }
+}
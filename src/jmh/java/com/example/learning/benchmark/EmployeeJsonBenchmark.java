@@ -0,0 +1,109 @@
+package com.example.learning.benchmark;
+
+import com.example.learning.entity.Employee;
+import com.example.learning.entity.EmployeeJson;
+import com.example.learning.projection.EmployeeField;
+import com.example.learning.sync.EmployeeFeedDeserializer;
+import com.example.learning.sync.EmployeeRecordConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据源解析和转换的基准测试
+ * 覆盖同步时每条记录都要经过的步骤：Jackson解析 employee.json、生日转换、
+ * 一次完成解析、转换和校验的 EmployeeFeedDeserializer、内容摘要，
+ * 以及接口返回员工列表时的序列化
+ * 每个方法处理整个 employee.json，结果是处理一遍的平均耗时
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmployeeJsonBenchmark {
+
+    private ObjectMapper objectMapper;
+
+    private EmployeeRecordConverter converter;
+
+    private ObjectReader feedReader;
+
+    private byte[] feed;
+
+    private EmployeeJson[] records;
+
+    private List<Employee> employees;
+
+    @Setup
+    public void setUp() throws IOException {
+        // 和Spring Boot自动配置的ObjectMapper一样支持java.time类型
+        objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .setFilterProvider(EmployeeField.ALL_FIELDS);
+        converter = new EmployeeRecordConverter();
+        feedReader = objectMapper.copy()
+            .registerModule(new SimpleModule().addDeserializer(Employee.class, new EmployeeFeedDeserializer()))
+            .readerFor(Employee[].class);
+        try (InputStream in = new ClassPathResource("employee.json").getInputStream()) {
+            feed = StreamUtils.copyToByteArray(in);
+        }
+        records = objectMapper.readValue(feed, EmployeeJson[].class);
+        employees = Arrays.asList(feedReader.<Employee[]>readValue(feed));
+    }
+
+    @Benchmark
+    public EmployeeJson[] parseFeed() throws IOException {
+        return objectMapper.readValue(feed, EmployeeJson[].class);
+    }
+
+    @Benchmark
+    public void birthdateAsLocalDate(Blackhole blackhole) {
+        for (EmployeeJson record : records) {
+            blackhole.consume(record.getBirthdateAsLocalDate());
+        }
+    }
+
+    @Benchmark
+    public void contentHash(Blackhole blackhole) {
+        for (Employee employee : employees) {
+            blackhole.consume(converter.computeContentHash(employee));
+        }
+    }
+
+    /**
+     * 同步实际使用的方式：解析、转换和校验在一次遍历中完成
+     */
+    @Benchmark
+    public Employee[] parseFeedDirect() throws IOException {
+        return feedReader.readValue(feed);
+    }
+
+    @Benchmark
+    public byte[] serializeEmployees() throws IOException {
+        return objectMapper.writeValueAsBytes(employees);
+    }
+}
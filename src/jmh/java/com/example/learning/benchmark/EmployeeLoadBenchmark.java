@@ -0,0 +1,161 @@
+package com.example.learning.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 同步接口和异步接口的压力测试
+ * 大量客户端同时请求查询全部员工，把数据库连接池压满，同时用一个客户端不停地请求一个不访问数据库的接口，
+ * 分别对比 /api/employees 和 /api/async/employees 两种方式下的吞吐量、尾延迟和503的数量，
+ * 以及数据库被压满时其他请求的延迟
+ *
+ * 这是对运行中的应用发HTTP请求的压力测试，不是JMH基准测试，JMH不会运行它
+ * 运行方式：先启动应用（可以用 h2 配置并先执行一次同步导入数据），然后运行
+ * mvn -P benchmark test-compile exec:java
+ *     -Dexec.mainClass=com.example.learning.benchmark.EmployeeLoadBenchmark
+ *     -Dbenchmark.url=http://localhost:10086 -Dbenchmark.clients=400 -Dbenchmark.seconds=30
+ */
+public class EmployeeLoadBenchmark {
+
+    private static final String BASE_URL = System.getProperty("benchmark.url", "http://localhost:10086");
+
+    /**
+     * 并发客户端数，应该明显大于Tomcat的请求线程数（默认200）
+     */
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 400);
+
+    private static final int SECONDS = Integer.getInteger("benchmark.seconds", 30);
+
+    /**
+     * 压测的接口，相对于 /api/employees 和 /api/async/employees，默认是查询全部员工
+     * 例如 -Dbenchmark.path=/search?lastName=son
+     */
+    private static final String HEAVY_PATH = System.getProperty("benchmark.path", "");
+
+    /**
+     * 不访问数据库的接口，用来观察数据库被压满时其他请求是否也要排队
+     */
+    private static final String PROBE_PATH = "/api/employees/cache/stats";
+
+    public static void main(String[] args) throws Exception {
+        // 预热，不计入结果
+        run("warmup", "/api/employees" + HEAVY_PATH, 5);
+        run("warmup", "/api/async/employees" + HEAVY_PATH, 5);
+
+        run("sync  /api/employees" + HEAVY_PATH, "/api/employees" + HEAVY_PATH, SECONDS);
+        run("async /api/async/employees" + HEAVY_PATH, "/api/async/employees" + HEAVY_PATH, SECONDS);
+    }
+
+    private static void run(String name, String path, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        Recorder heavy = new Recorder();
+        Recorder probe = new Recorder();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS + 1);
+        CountDownLatch done = new CountDownLatch(CLIENTS + 1);
+        for (int i = 0; i < CLIENTS; i++) {
+            clients.execute(() -> loop(path, deadline, heavy, done));
+        }
+        clients.execute(() -> loop(PROBE_PATH, deadline, probe, done));
+        done.await();
+        clients.shutdown();
+
+        if (!"warmup".equals(name)) {
+            System.out.println(name);
+            heavy.print("  heavy", seconds);
+            probe.print("  probe", seconds);
+        }
+    }
+
+    private static void loop(String path, long deadline, Recorder recorder, CountDownLatch done) {
+        try {
+            while (System.nanoTime() < deadline) {
+                long start = System.nanoTime();
+                int status = request(path);
+                recorder.record(status, System.nanoTime() - start);
+            }
+        } finally {
+            done.countDown();
+        }
+    }
+
+    private static int request(String path) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(BASE_URL + path).openConnection();
+            connection.setConnectTimeout(60_000);
+            connection.setReadTimeout(60_000);
+            int status = connection.getResponseCode();
+            // 读完响应体，连接才能复用
+            try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                if (in != null) {
+                    byte[] buffer = new byte[8192];
+                    while (in.read(buffer) >= 0) {
+                        // 丢弃
+                    }
+                }
+            }
+            return status;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 记录请求的状态和耗时
+     */
+    private static final class Recorder {
+
+        private final List<Long> latencies = new ArrayList<>();
+
+        private final AtomicLong ok = new AtomicLong();
+
+        private final AtomicLong unavailable = new AtomicLong();
+
+        private final AtomicLong failed = new AtomicLong();
+
+        void record(int status, long nanos) {
+            if (status >= 200 && status < 300) {
+                ok.incrementAndGet();
+            } else if (status == 503) {
+                unavailable.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+            }
+            synchronized (latencies) {
+                latencies.add(nanos);
+            }
+        }
+
+        void print(String name, int seconds) {
+            long[] sorted;
+            synchronized (latencies) {
+                sorted = new long[latencies.size()];
+                for (int i = 0; i < sorted.length; i++) {
+                    sorted[i] = latencies.get(i);
+                }
+            }
+            Arrays.sort(sorted);
+            System.out.printf("%-8s %8.1f ok/s  503=%-6d errors=%-6d p50=%8.1f ms  p99=%8.1f ms  p99.9=%8.1f ms%n",
+                name, ok.get() / (double) seconds, unavailable.get(), failed.get(),
+                percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999));
+        }
+
+        private static double percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.learning.benchmark;
+
+import com.example.learning.entity.Employee;
+import com.example.learning.mapper.EmployeeMapper;
+import org.apache.ibatis.session.SqlSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EmployeeMapper的基准测试
+ * 在H2（MySQL兼容模式）中执行生产环境的Mapper XML，表中预先写入 ROWS 条数据
+ * 测的是SQL和MyBatis映射本身的开销，和MySQL上的绝对耗时不能直接比较，但可以比较改动前后的差异
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmployeeMapperBenchmark {
+
+    private static final int ROWS = 50_000;
+
+    private static final int PAGE_SIZE = 10;
+
+    private BenchmarkDatabase database;
+
+    private SqlSession session;
+
+    private EmployeeMapper mapper;
+
+    private int nextUserId = ROWS;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        database = new BenchmarkDatabase("jmh_mapper");
+        database.clear();
+        session = database.getSqlSessionFactory().openSession(false);
+        mapper = session.getMapper(EmployeeMapper.class);
+        List<Employee> chunk = new ArrayList<>(1000);
+        for (int id = 1; id <= ROWS; id++) {
+            chunk.add(BenchmarkDatabase.sampleEmployee(id));
+            if (chunk.size() == 1000) {
+                mapper.insertBatch(chunk);
+                chunk.clear();
+            }
+        }
+        session.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        session.close();
+    }
+
+    @Benchmark
+    public Employee selectById() {
+        return mapper.selectById(ThreadLocalRandom.current().nextInt(ROWS) + 1);
+    }
+
+    /**
+     * 按级别过滤的随机一页，级别把表分成13份
+     */
+    @Benchmark
+    public List<Employee> selectByConditionPage() {
+        Employee condition = new Employee();
+        condition.setLevel((byte) ThreadLocalRandom.current().nextInt(13));
+        condition.setOffset(ThreadLocalRandom.current().nextInt(ROWS / 13 / PAGE_SIZE) * PAGE_SIZE);
+        condition.setLimit(PAGE_SIZE);
+        return mapper.selectByCondition(condition);
+    }
+
+    @Benchmark
+    public long countByCondition() {
+        Employee condition = new Employee();
+        condition.setIsActive(true);
+        return mapper.countByCondition(condition);
+    }
+
+    /**
+     * 插入一条记录后回滚，表中的数据量保持不变
+     */
+    @Benchmark
+    public int insert() {
+        int inserted = mapper.insert(BenchmarkDatabase.sampleEmployee(++nextUserId));
+        session.rollback();
+        return inserted;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.learning.benchmark;
+
+import com.example.learning.entity.Employee;
+import com.example.learning.mapper.EmployeeMapper;
+import org.apache.ibatis.session.SqlSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分页方式基准测试
+ * 对比 OFFSET 分页和游标（keyset）分页在第1页和第10000页的查询延迟
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmployeePaginationBenchmark {
+
+    private static final int ROWS = 200_000;
+
+    private static final int PAGE_SIZE = 10;
+
+    @Param({"1", "10000"})
+    private int page;
+
+    private BenchmarkDatabase database;
+
+    private SqlSession session;
+
+    private EmployeeMapper mapper;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        database = new BenchmarkDatabase("jmh_pagination");
+        database.clear();
+        session = database.getSqlSessionFactory().openSession(true);
+        mapper = session.getMapper(EmployeeMapper.class);
+        List<Employee> chunk = new ArrayList<>(1000);
+        for (int id = 1; id <= ROWS; id++) {
+            chunk.add(BenchmarkDatabase.sampleEmployee(id));
+            if (chunk.size() == 1000) {
+                mapper.insertBatch(chunk);
+                chunk.clear();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        session.close();
+    }
+
+    @Benchmark
+    public List<Employee> byOffset() {
+        Employee condition = new Employee();
+        condition.setOffset((page - 1) * PAGE_SIZE);
+        condition.setLimit(PAGE_SIZE);
+        return mapper.selectByCondition(condition);
+    }
+
+    /**
+     * 游标分页时客户端持有上一页最后一条的ID，这里直接用页码算出来，
+     * 模拟从第 page-1 页点击“下一页”
+     */
+    @Benchmark
+    public List<Employee> byCursor() {
+        Employee condition = new Employee();
+        if (page > 1) {
+            condition.setAfterId((page - 1) * PAGE_SIZE);
+        }
+        condition.setLimit(PAGE_SIZE);
+        return mapper.selectByCursor(condition);
+    }
+}
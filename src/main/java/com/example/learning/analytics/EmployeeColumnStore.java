@@ -0,0 +1,561 @@
+package com.example.learning.analytics;
+
+import com.example.learning.entity.Employee;
+import com.example.learning.event.EmployeeChangeEvent;
+import com.example.learning.mapper.EmployeeMapper;
+import com.example.learning.model.SalaryAggregate;
+import com.example.learning.model.SalaryQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 员工数据的列式快照
+ * 仪表盘按级别、货币、在职状态统计工资，如果每次都把整张表作为对象列表查出来再汇总，
+ * 大部分时间都花在传输和创建BigDecimal、Byte、Boolean这些包装对象上
+ *
+ * 这里把统计需要的列分别保存在基本类型数组中：
+ * 工资换算成以分为单位的long，级别是byte，在职状态是一个位图，货币用字典编码成short
+ * 统计时用fork-join把行拆成若干段并行扫描，最后合并各段的结果
+ *
+ * 快照第一次使用时（或者应用启动后）在锁外从数据库加载，加载完成后再替换，之后根据员工变更事件增量更新
+ * 删除的行只是打上标记，删除的行超过一半时再整理数组
+ */
+@Component
+public class EmployeeColumnStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeColumnStore.class);
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * 每个并行任务至少扫描的行数，太小的话拆分任务的开销比扫描还大
+     */
+    private static final int SEGMENT_SIZE = 16 * 1024;
+
+    @Autowired
+    private EmployeeMapper employeeMapper;
+
+    /**
+     * 保护当前快照，统计持有读锁，应用变更和替换快照持有写锁
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 保证同一时间只有一个线程在加载快照
+     */
+    private final Object loadMonitor = new Object();
+
+    private Columns columns = new Columns();
+
+    private boolean loaded;
+
+    /**
+     * 加载期间收到的变更事件，加载完成后在新快照上重放，不在加载时为null
+     */
+    private List<EmployeeChangeEvent> pendingEvents;
+
+    /**
+     * 应用启动完成后在后台加载快照，第一次统计就不用等待加载
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        Thread loader = new Thread(() -> {
+            try {
+                ensureLoaded();
+            } catch (RuntimeException e) {
+                logger.error("加载统计快照失败，将在第一次统计时重试: {}", e.getMessage(), e);
+            }
+        }, "column-store-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * 按条件统计工资
+     *
+     * @param query 分组维度、过滤条件和需要计算的百分位
+     * @return 返回每个分组的统计结果，按分组维度排序
+     * @throws IllegalArgumentException 分组维度或百分位不正确时抛出
+     */
+    public List<SalaryAggregate> aggregateSalary(SalaryQuery query) {
+        Set<String> groupBy = new HashSet<>();
+        if (query.getGroupBy() != null) {
+            for (String dimension : query.getGroupBy()) {
+                if (!"level".equals(dimension) && !"currency".equals(dimension) && !"isActive".equals(dimension)) {
+                    throw new IllegalArgumentException("不支持的分组维度: " + dimension);
+                }
+                groupBy.add(dimension);
+            }
+        }
+        double[] percentiles = new double[query.getPercentiles() == null ? 0 : query.getPercentiles().size()];
+        for (int i = 0; i < percentiles.length; i++) {
+            percentiles[i] = query.getPercentiles().get(i);
+            if (!(percentiles[i] > 0 && percentiles[i] <= 100)) {
+                throw new IllegalArgumentException("百分位必须在0到100之间: " + percentiles[i]);
+            }
+        }
+
+        if (!isLoaded()) {
+            ensureLoaded();
+        }
+
+        lock.readLock().lock();
+        try {
+            Columns current = columns;
+            int currencyFilter = -1;
+            if (query.getCurrency() != null) {
+                Short code = current.currencyCodes.get(query.getCurrency());
+                if (code == null) {
+                    return new ArrayList<>();
+                }
+                currencyFilter = code;
+            }
+            AggregateTask task = new AggregateTask(current, 0, current.size, query.getLevel(), currencyFilter,
+                query.getIsActive(), groupBy.contains("level"), groupBy.contains("currency"),
+                groupBy.contains("isActive"), percentiles.length > 0);
+            Map<Integer, GroupAccumulator> groups = ForkJoinPool.commonPool().invoke(task);
+
+            List<SalaryAggregate> result = new ArrayList<>();
+            for (Map.Entry<Integer, GroupAccumulator> entry : new TreeMap<>(groups).entrySet()) {
+                int key = entry.getKey();
+                SalaryAggregate aggregate = entry.getValue().toAggregate(percentiles);
+                if (groupBy.contains("level")) {
+                    aggregate.setLevel((byte) (key >>> 17));
+                }
+                if (groupBy.contains("currency")) {
+                    aggregate.setCurrency(current.currencyDictionary.get((key >>> 1) & 0xFFFF));
+                }
+                if (groupBy.contains("isActive")) {
+                    aggregate.setIsActive((key & 1) == 1);
+                }
+                result.add(aggregate);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 员工数据变更后更新快照
+     * 正在加载时先把事件记下来，加载完成后再应用到新快照上
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(EmployeeChangeEvent.DERIVED_DATA_ORDER)
+    public void onEmployeeChanged(EmployeeChangeEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (pendingEvents != null) {
+                pendingEvents.add(event);
+                return;
+            }
+            // 还没有开始加载时不用处理，加载时会读到最新的数据
+            if (!loaded) {
+                return;
+            }
+            apply(columns, event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 从数据库加载快照
+     * 读取数据库和构建列数组时不持有锁，写请求的变更事件不会被阻塞，
+     * 构建完成后在写锁内重放加载期间的事件，再替换当前快照
+     * 重放的事件可能已经包含在读到的数据中，重复应用的结果相同
+     */
+    private void ensureLoaded() {
+        synchronized (loadMonitor) {
+            lock.writeLock().lock();
+            try {
+                if (loaded) {
+                    return;
+                }
+                pendingEvents = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Columns snapshot;
+            try {
+                snapshot = load();
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    pendingEvents = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                List<EmployeeChangeEvent> replay = pendingEvents;
+                pendingEvents = null;
+                for (EmployeeChangeEvent event : replay) {
+                    apply(snapshot, event);
+                }
+                columns = snapshot;
+                loaded = true;
+                logger.info("统计快照已替换，重放加载期间的 {} 个变更事件", replay.size());
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private Columns load() {
+        long start = System.currentTimeMillis();
+        Columns snapshot = new Columns();
+        Employee condition = new Employee();
+        condition.setLimit(LOAD_BATCH_SIZE);
+        List<Employee> batch;
+        do {
+            batch = employeeMapper.selectByCursor(condition);
+            for (Employee employee : batch) {
+                snapshot.upsert(employee);
+            }
+            if (!batch.isEmpty()) {
+                condition.setAfterId(batch.get(batch.size() - 1).getUserId());
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+        logger.info("统计快照加载完成，共 {} 行，耗时 {} ms", snapshot.size, System.currentTimeMillis() - start);
+        return snapshot;
+    }
+
+    /**
+     * 把一个变更事件应用到快照上，调用方必须持有写锁
+     */
+    private void apply(Columns target, EmployeeChangeEvent event) {
+        switch (event.getType()) {
+            case INSERT:
+            case UPDATE:
+                target.upsert(event.getAfter());
+                break;
+            case DELETE:
+                for (Integer userId : event.getUserIds()) {
+                    target.delete(userId);
+                }
+                break;
+            case TRUNCATE:
+                target.reset();
+                break;
+            default:
+                refresh(target, new ArrayList<>(event.getUserIds()));
+                break;
+        }
+        if (target.size > INITIAL_CAPACITY && target.rowOf.size() < target.size / 2) {
+            target.compact();
+        }
+    }
+
+    /**
+     * 批量变更只知道ID，从数据库读取这些员工的最新数据，数据库中已经没有的就删除
+     */
+    private void refresh(Columns target, List<Integer> ids) {
+        for (int from = 0; from < ids.size(); from += LOAD_BATCH_SIZE) {
+            List<Integer> batchIds = ids.subList(from, Math.min(from + LOAD_BATCH_SIZE, ids.size()));
+            Employee condition = new Employee();
+            condition.setUserIds(batchIds);
+            Set<Integer> found = new HashSet<>();
+            for (Employee employee : employeeMapper.selectByCondition(condition)) {
+                target.upsert(employee);
+                found.add(employee.getUserId());
+            }
+            for (Integer userId : batchIds) {
+                if (!found.contains(userId)) {
+                    target.delete(userId);
+                }
+            }
+        }
+    }
+
+    /**
+     * 一份列式快照
+     */
+    private static final class Columns {
+
+        private int[] userIds = new int[INITIAL_CAPACITY];
+        private long[] salaryCents = new long[INITIAL_CAPACITY];
+        private byte[] levels = new byte[INITIAL_CAPACITY];
+        private short[] currencies = new short[INITIAL_CAPACITY];
+        private final BitSet active = new BitSet();
+
+        /**
+         * 有效的行，删除的行对应的位为0
+         */
+        private final BitSet live = new BitSet();
+
+        /**
+         * 已经使用的行数（包括删除的行）
+         */
+        private int size;
+
+        private final Map<Integer, Integer> rowOf = new HashMap<>();
+
+        private final List<String> currencyDictionary = new ArrayList<>();
+        private final Map<String, Short> currencyCodes = new HashMap<>();
+
+        void upsert(Employee employee) {
+            if (employee == null || employee.getSalary() == null || employee.getLevel() == null
+                    || employee.getIsActive() == null || employee.getCurrency() == null) {
+                return;
+            }
+            Integer row = rowOf.get(employee.getUserId());
+            if (row == null) {
+                ensureCapacity(size + 1);
+                row = size++;
+                rowOf.put(employee.getUserId(), row);
+                live.set(row);
+            }
+            userIds[row] = employee.getUserId();
+            salaryCents[row] = employee.getSalary().setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+            levels[row] = employee.getLevel();
+            currencies[row] = encodeCurrency(employee.getCurrency());
+            active.set(row, employee.getIsActive());
+        }
+
+        void delete(Integer userId) {
+            Integer row = rowOf.remove(userId);
+            if (row != null) {
+                live.clear(row);
+            }
+        }
+
+        void reset() {
+            size = 0;
+            rowOf.clear();
+            live.clear();
+            active.clear();
+        }
+
+        /**
+         * 去掉删除的行，把有效的行移动到数组前面
+         */
+        void compact() {
+            int target = 0;
+            for (int row = live.nextSetBit(0); row >= 0 && row < size; row = live.nextSetBit(row + 1)) {
+                userIds[target] = userIds[row];
+                salaryCents[target] = salaryCents[row];
+                levels[target] = levels[row];
+                currencies[target] = currencies[row];
+                active.set(target, active.get(row));
+                rowOf.put(userIds[target], target);
+                target++;
+            }
+            live.clear();
+            live.set(0, target);
+            active.clear(target, size);
+            size = target;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= userIds.length) {
+                return;
+            }
+            int newLength = Math.max(capacity, userIds.length * 2);
+            userIds = Arrays.copyOf(userIds, newLength);
+            salaryCents = Arrays.copyOf(salaryCents, newLength);
+            levels = Arrays.copyOf(levels, newLength);
+            currencies = Arrays.copyOf(currencies, newLength);
+        }
+
+        private short encodeCurrency(String currency) {
+            Short code = currencyCodes.get(currency);
+            if (code == null) {
+                code = (short) currencyDictionary.size();
+                currencyDictionary.add(currency);
+                currencyCodes.put(currency, code);
+            }
+            return code;
+        }
+    }
+
+    /**
+     * 并行统计任务
+     * 行数超过SEGMENT_SIZE时拆成两半分别统计再合并，否则直接扫描
+     * 调用方持有读锁，任务执行期间快照不会变化
+     */
+    private static class AggregateTask extends RecursiveTask<Map<Integer, GroupAccumulator>> {
+        private final Columns columns;
+        private final int from;
+        private final int to;
+        private final Byte levelFilter;
+        private final int currencyFilter;
+        private final Boolean activeFilter;
+        private final boolean byLevel;
+        private final boolean byCurrency;
+        private final boolean byActive;
+        private final boolean collectValues;
+
+        AggregateTask(Columns columns, int from, int to, Byte levelFilter, int currencyFilter, Boolean activeFilter,
+                      boolean byLevel, boolean byCurrency, boolean byActive, boolean collectValues) {
+            this.columns = columns;
+            this.from = from;
+            this.to = to;
+            this.levelFilter = levelFilter;
+            this.currencyFilter = currencyFilter;
+            this.activeFilter = activeFilter;
+            this.byLevel = byLevel;
+            this.byCurrency = byCurrency;
+            this.byActive = byActive;
+            this.collectValues = collectValues;
+        }
+
+        @Override
+        protected Map<Integer, GroupAccumulator> compute() {
+            if (to - from > SEGMENT_SIZE) {
+                int middle = (from + to) >>> 1;
+                AggregateTask left = split(from, middle);
+                AggregateTask right = split(middle, to);
+                left.fork();
+                Map<Integer, GroupAccumulator> result = right.compute();
+                for (Map.Entry<Integer, GroupAccumulator> entry : left.join().entrySet()) {
+                    GroupAccumulator existing = result.get(entry.getKey());
+                    if (existing == null) {
+                        result.put(entry.getKey(), entry.getValue());
+                    } else {
+                        existing.merge(entry.getValue());
+                    }
+                }
+                return result;
+            }
+
+            Map<Integer, GroupAccumulator> groups = new LinkedHashMap<>();
+            for (int row = columns.live.nextSetBit(from); row >= 0 && row < to; row = columns.live.nextSetBit(row + 1)) {
+                if (levelFilter != null && columns.levels[row] != levelFilter) {
+                    continue;
+                }
+                if (currencyFilter >= 0 && columns.currencies[row] != currencyFilter) {
+                    continue;
+                }
+                boolean isActive = columns.active.get(row);
+                if (activeFilter != null && isActive != activeFilter) {
+                    continue;
+                }
+                int key = (byLevel ? (columns.levels[row] & 0xFF) << 17 : 0)
+                    | (byCurrency ? (columns.currencies[row] & 0xFFFF) << 1 : 0)
+                    | (byActive && isActive ? 1 : 0);
+                GroupAccumulator accumulator = groups.get(key);
+                if (accumulator == null) {
+                    accumulator = new GroupAccumulator(collectValues);
+                    groups.put(key, accumulator);
+                }
+                accumulator.add(columns.salaryCents[row]);
+            }
+            return groups;
+        }
+
+        private AggregateTask split(int from, int to) {
+            return new AggregateTask(columns, from, to, levelFilter, currencyFilter, activeFilter,
+                byLevel, byCurrency, byActive, collectValues);
+        }
+    }
+
+    /**
+     * 一个分组的中间结果，金额都以分为单位
+     */
+    private static class GroupAccumulator {
+        private long count;
+        private long sum;
+        private long min = Long.MAX_VALUE;
+        private long max = Long.MIN_VALUE;
+
+        /**
+         * 计算百分位需要所有的值，不需要百分位时为null
+         */
+        private long[] values;
+        private int valueCount;
+
+        GroupAccumulator(boolean collectValues) {
+            if (collectValues) {
+                values = new long[16];
+            }
+        }
+
+        void add(long cents) {
+            count++;
+            sum += cents;
+            min = Math.min(min, cents);
+            max = Math.max(max, cents);
+            if (values != null) {
+                if (valueCount == values.length) {
+                    values = Arrays.copyOf(values, valueCount * 2);
+                }
+                values[valueCount++] = cents;
+            }
+        }
+
+        void merge(GroupAccumulator other) {
+            count += other.count;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            if (values != null) {
+                if (valueCount + other.valueCount > values.length) {
+                    values = Arrays.copyOf(values, valueCount + other.valueCount);
+                }
+                System.arraycopy(other.values, 0, values, valueCount, other.valueCount);
+                valueCount += other.valueCount;
+            }
+        }
+
+        SalaryAggregate toAggregate(double[] percentiles) {
+            SalaryAggregate aggregate = new SalaryAggregate();
+            aggregate.setCount(count);
+            aggregate.setSum(BigDecimal.valueOf(sum, 2));
+            aggregate.setAvg(BigDecimal.valueOf(sum, 2).divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP));
+            aggregate.setMin(BigDecimal.valueOf(min, 2));
+            aggregate.setMax(BigDecimal.valueOf(max, 2));
+            if (percentiles.length > 0) {
+                long[] sorted = Arrays.copyOf(values, valueCount);
+                Arrays.parallelSort(sorted);
+                Map<String, BigDecimal> result = new LinkedHashMap<>();
+                for (double percentile : percentiles) {
+                    // 最近秩法：第 ceil(p/100 * n) 个值
+                    int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+                    result.put("p" + BigDecimal.valueOf(percentile).stripTrailingZeros().toPlainString(),
+                        BigDecimal.valueOf(sorted[Math.max(rank, 1) - 1], 2));
+                }
+                aggregate.setPercentiles(result);
+            }
+            return aggregate;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.learning.async;
+
+import com.example.learning.datasource.PrimaryPinning;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Date;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 数据库操作专用的线程池
+ * 异步接口把会阻塞在JDBC上的工作交给这里执行，Tomcat的请求线程立即释放，
+ * 数据库变慢时被占满的只是这个线程池，其他请求不受影响
+ *
+ * 线程数、排队数和等待时间都有上限：排队已满或者超时的请求直接返回503，
+ * 不让请求无限堆积，调用方可以按 Retry-After 稍后重试
+ *
+ * 超时对查询和修改的处理不同：
+ * 查询（submit）超过等待时间就返回503，已经开始的查询结果被丢弃，重试没有副作用；
+ * 修改（submitWrite）只在排队期间计算超时，超时的修改保证不会再执行，返回503可以放心重试；
+ * 已经开始的修改一定等到真正的结果，JDBC调用无法可靠地中断，这时返回503会让调用方把已经提交的修改再执行一次，
+ * 只有超过修改的超时时间（employee.async.write-timeout-ms）仍然没有结果时才返回504，不带 Retry-After，结果未知
+ */
+@Component
+public class DatabaseExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseExecutor.class);
+
+    private static final String REJECTED = "employee.async.rejected";
+
+    /**
+     * 执行数据库操作的线程数，一般和连接池大小相同，更多的线程也只能等连接
+     */
+    @Value("${employee.async.db-threads:10}")
+    private int threads;
+
+    /**
+     * 最多允许多少个操作排队，超出后直接返回503
+     */
+    @Value("${employee.async.queue-capacity:100}")
+    private int queueCapacity;
+
+    /**
+     * 查询从提交到完成、修改在队列中等待的最长时间（毫秒），超时返回503
+     */
+    @Value("${employee.async.timeout-ms:5000}")
+    private long timeoutMs;
+
+    /**
+     * 修改从提交到完成的最长时间（毫秒），超时返回504，修改是否提交未知
+     * 包含排队的时间，应当大于 timeoutMs
+     */
+    @Value("${employee.async.write-timeout-ms:30000}")
+    private long writeTimeoutMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolTaskExecutor executor;
+
+    /**
+     * 修改在队列中等待超时的计时器
+     */
+    private ThreadPoolTaskScheduler queueTimer;
+
+    private Counter queueFull;
+
+    private Counter timedOut;
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("db-");
+        executor.initialize();
+
+        queueTimer = new ThreadPoolTaskScheduler();
+        queueTimer.setThreadNamePrefix("db-queue-timer-");
+        queueTimer.initialize();
+
+        queueFull = rejectedCounter("queue-full");
+        timedOut = rejectedCounter("timeout");
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+        queueTimer.shutdown();
+    }
+
+    /**
+     * 在数据库线程池中执行一个查询
+     *
+     * @param work 要执行的查询，在数据库线程上调用
+     * @return 返回查询的结果；排队已满或者超时时是503，查询抛出的异常交给Spring MVC处理
+     */
+    public <T> DeferredResult<ResponseEntity<T>> submit(Callable<ResponseEntity<T>> work) {
+        DeferredResult<ResponseEntity<T>> result = new DeferredResult<>(timeoutMs);
+        AtomicBoolean started = new AtomicBoolean();
+        Future<?> future = execute(work, result, started);
+        if (future != null) {
+            result.onTimeout(() -> {
+                timedOut.increment();
+                // 还在排队的查询不再执行；已经在执行的查询结果会被丢弃
+                started.set(true);
+                future.cancel(true);
+                result.setResult(unavailable());
+            });
+        }
+        return result;
+    }
+
+    /**
+     * 在数据库线程池中执行一个修改
+     * 只有还在排队的修改会超时，开始执行之后等待真正的结果
+     *
+     * @param work 要执行的修改，在数据库线程上调用
+     * @return 返回修改的结果；排队已满或者排队超时时是503，这时修改没有执行；
+     *         超过 writeTimeoutMs 仍然没有结果时是504，修改是否提交未知
+     */
+    public <T> DeferredResult<ResponseEntity<T>> submitWrite(Callable<ResponseEntity<T>> work) {
+        DeferredResult<ResponseEntity<T>> result = new DeferredResult<>(writeTimeoutMs);
+        AtomicBoolean started = new AtomicBoolean();
+        Future<?> future = execute(work, result, started);
+        if (future != null) {
+            queueTimer.schedule(() -> {
+                if (started.compareAndSet(false, true)) {
+                    timedOut.increment();
+                    future.cancel(false);
+                    result.setResult(unavailable());
+                }
+            }, new Date(System.currentTimeMillis() + timeoutMs));
+            result.onTimeout(() -> result.setResult(
+                ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).<T>build()));
+        }
+        return result;
+    }
+
+    /**
+     * 把操作放入线程池，操作开始之前先把started设置为true，已经被超时处理抢先设置时不再执行
+     *
+     * @return 返回操作的Future，排队已满时结果已经设置为503，返回null
+     */
+    private <T> Future<?> execute(Callable<ResponseEntity<T>> work, DeferredResult<ResponseEntity<T>> result,
+                                  AtomicBoolean started) {
+        Callable<ResponseEntity<T>> task = PrimaryPinning.propagate(work);
+        try {
+            return executor.submit(() -> {
+                if (!started.compareAndSet(false, true)) {
+                    return;
+                }
+                try {
+                    result.setResult(task.call());
+                } catch (Throwable e) {
+                    result.setErrorResult(e);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            queueFull.increment();
+            logger.debug("数据库线程池已满，拒绝请求");
+            result.setResult(unavailable());
+            return null;
+        }
+    }
+
+    private static <T> ResponseEntity<T> unavailable() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .build();
+    }
+
+    private Counter rejectedCounter(String reason) {
+        return Counter.builder(REJECTED)
+            .description("数据库线程池拒绝的异步请求数")
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+}
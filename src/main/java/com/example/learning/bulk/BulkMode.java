@@ -0,0 +1,33 @@
+package com.example.learning.bulk;
+
+/**
+ * 批量写入方式
+ */
+public enum BulkMode {
+    /**
+     * 只新增，员工已存在时这一条失败
+     */
+    INSERT,
+    /**
+     * 不存在时新增，已存在时覆盖
+     */
+    UPSERT,
+    /**
+     * 只修改已存在的员工，和单条修改一样只更新传入的非空字段
+     */
+    UPDATE;
+
+    /**
+     * 根据请求参数解析写入方式，不区分大小写
+     * 
+     * @throws IllegalArgumentException 不支持的写入方式
+     */
+    public static BulkMode of(String name) {
+        for (BulkMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(name)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("不支持的写入方式: " + name);
+    }
+}
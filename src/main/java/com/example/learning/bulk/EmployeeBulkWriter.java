@@ -0,0 +1,380 @@
+package com.example.learning.bulk;
+
+import com.example.learning.entity.Employee;
+import com.example.learning.event.EmployeeChangeEvent;
+import com.example.learning.mapper.EmployeeMapper;
+import com.example.learning.model.BulkRowError;
+import com.example.learning.model.BulkWriteResult;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 员工批量写入
+ * 一边解析请求体一边写入：每读满一个数据块就在一个事务中用一条多行语句写入，
+ * 内存中最多只有一个数据块，请求体再大也不需要整个读进内存
+ *
+ * 请求体可以是JSON数组，也可以是每行一个JSON对象（NDJSON）
+ * 一条记录失败不影响其他记录：格式或校验错误的记录直接跳过，
+ * 数据块写入数据库失败时逐条重试，找出具体是哪几条记录失败
+ */
+@Component
+public class EmployeeBulkWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeBulkWriter.class);
+
+    /**
+     * 结果中最多列出的失败记录数
+     */
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    /**
+     * 遇到死锁或锁等待超时时最多尝试的次数
+     */
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Autowired
+    private EmployeeMapper employeeMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 每个数据块的记录数，也就是一条多行语句写入的记录数
+     */
+    @Value("${employee.bulk.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * 批量写入员工
+     * 
+     * @param in 请求体，JSON数组或者NDJSON
+     * @param mode 写入方式
+     * @return 返回写入结果，包括每条失败记录的原因
+     * @throws IOException 读取请求体失败（比如客户端断开连接）时抛出
+     */
+    public BulkWriteResult write(InputStream in, BulkMode mode) throws IOException {
+        BulkWriteResult result = new BulkWriteResult();
+        result.setMode(mode.name());
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+            // 不是数组时，依次读取根级别的JSON对象，换行符只是空白
+            while (token != null && !(array && token == JsonToken.END_ARRAY)) {
+                JsonNode node = objectMapper.readTree(parser);
+                Row row = toRow(node, result.getReceived(), mode, result);
+                result.setReceived(result.getReceived() + 1);
+                if (row != null) {
+                    chunk.add(row);
+                    if (chunk.size() >= chunkSize) {
+                        writeChunk(chunk, mode, result);
+                        chunk.clear();
+                    }
+                }
+                token = parser.nextToken();
+            }
+            result.setComplete(true);
+        } catch (JsonProcessingException e) {
+            // 格式错误之后的内容无法继续解析，已经读到的记录照常写入
+            result.setError("第 " + result.getReceived() + " 条记录处JSON格式不正确: " + e.getOriginalMessage());
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, mode, result);
+        }
+        logger.info("批量写入完成: mode={}, received={}, inserted={}, updated={}, failed={}, complete={}",
+            mode, result.getReceived(), result.getInserted(), result.getUpdated(), result.getFailed(),
+            result.isComplete());
+        return result;
+    }
+
+    /**
+     * 把一条记录转换成员工并校验，失败时记入结果并返回null
+     */
+    private Row toRow(JsonNode node, long index, BulkMode mode, BulkWriteResult result) {
+        JsonNode userIdNode = node.path("userId");
+        Integer userId = userIdNode.canConvertToInt() ? userIdNode.asInt() : null;
+        Employee employee;
+        try {
+            employee = objectMapper.treeToValue(node, Employee.class);
+        } catch (JsonProcessingException e) {
+            fail(result, index, userId, "字段格式不正确: " + e.getOriginalMessage());
+            return null;
+        }
+        if (employee == null) {
+            fail(result, index, null, "记录为空");
+            return null;
+        }
+        String missingField = mode == BulkMode.UPDATE
+            ? (employee.getUserId() == null ? "userId" : null)
+            : firstMissingField(employee);
+        if (missingField != null) {
+            fail(result, index, employee.getUserId(), "缺少字段 " + missingField);
+            return null;
+        }
+        return new Row(index, employee);
+    }
+
+    private static String firstMissingField(Employee employee) {
+        if (employee.getUserId() == null) {
+            return "userId";
+        }
+        if (!StringUtils.hasText(employee.getFirstName())) {
+            return "firstName";
+        }
+        if (!StringUtils.hasText(employee.getLastName())) {
+            return "lastName";
+        }
+        if (employee.getSalary() == null) {
+            return "salary";
+        }
+        if (!StringUtils.hasText(employee.getCurrency())) {
+            return "currency";
+        }
+        if (employee.getBirthdate() == null) {
+            return "birthdate";
+        }
+        if (employee.getIsActive() == null) {
+            return "isActive";
+        }
+        if (employee.getLevel() == null) {
+            return "level";
+        }
+        return null;
+    }
+
+    /**
+     * 写入一个数据块
+     * 数据库报错时整个事务回滚，再逐条写入，只有真正有问题的记录失败
+     */
+    private void writeChunk(List<Row> rows, BulkMode mode, BulkWriteResult result) {
+        List<Row> unique = removeDuplicates(rows, result);
+        if (unique.isEmpty()) {
+            return;
+        }
+        ChunkOutcome outcome;
+        try {
+            outcome = executeWithRetry(unique, mode);
+        } catch (DataAccessException e) {
+            if (unique.size() == 1) {
+                Row row = unique.get(0);
+                fail(result, row.index, row.employee.getUserId(), e.getMostSpecificCause().getMessage());
+                return;
+            }
+            logger.warn("批量写入的数据块失败，改为逐条写入: {}", e.getMostSpecificCause().getMessage());
+            for (Row row : unique) {
+                writeChunk(Collections.singletonList(row), mode, result);
+            }
+            return;
+        }
+        result.setInserted(result.getInserted() + outcome.inserted);
+        result.setUpdated(result.getUpdated() + outcome.updated);
+        for (Map.Entry<Row, String> failure : outcome.failures.entrySet()) {
+            fail(result, failure.getKey().index, failure.getKey().employee.getUserId(), failure.getValue());
+        }
+    }
+
+    /**
+     * 同一条多行语句中不能出现重复的主键，同一个数据块中重复的员工ID只保留第一条
+     */
+    private static List<Row> removeDuplicates(List<Row> rows, BulkWriteResult result) {
+        Set<Integer> seen = new HashSet<>();
+        List<Row> unique = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            if (seen.add(row.employee.getUserId())) {
+                unique.add(row);
+            } else {
+                fail(result, row.index, row.employee.getUserId(), "员工ID在请求中重复");
+            }
+        }
+        return unique;
+    }
+
+    private ChunkOutcome executeWithRetry(List<Row> rows, BulkMode mode) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> apply(rows, mode));
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                logger.warn("批量写入时发生锁冲突，第 {} 次重试: {}", attempt, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 在事务中写入一个数据块
+     * 失败的记录先收集起来，事务提交之后才计入结果，回滚重试时不会重复记录
+     */
+    private ChunkOutcome apply(List<Row> rows, BulkMode mode) {
+        ChunkOutcome outcome = new ChunkOutcome();
+        List<Integer> ids = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            ids.add(row.employee.getUserId());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Employee> written = new ArrayList<>(rows.size());
+
+        if (mode == BulkMode.UPDATE) {
+            Map<Integer, Employee> current = new HashMap<>();
+            for (Employee existing : employeeMapper.selectByIdsForUpdate(ids)) {
+                current.put(existing.getUserId(), existing);
+            }
+            for (Row row : rows) {
+                Employee existing = current.get(row.employee.getUserId());
+                if (existing == null) {
+                    outcome.failures.put(row, "员工不存在");
+                    continue;
+                }
+                merge(row.employee, existing);
+                // 手工修改后内容摘要失效，下次增量同步会以数据源为准重新写入
+                existing.setContentHash(null);
+                existing.setUpdatedAt(now);
+                written.add(existing);
+            }
+            if (!written.isEmpty()) {
+                employeeMapper.upsertBatch(written);
+                outcome.updated = written.size();
+            }
+        } else {
+            Set<Integer> existingIds = new HashSet<>();
+            for (Employee existing : employeeMapper.selectHashesByIds(ids)) {
+                existingIds.add(existing.getUserId());
+            }
+            for (Row row : rows) {
+                boolean exists = existingIds.contains(row.employee.getUserId());
+                if (exists && mode == BulkMode.INSERT) {
+                    outcome.failures.put(row, "员工已存在");
+                    continue;
+                }
+                Employee employee = row.employee;
+                employee.setCreatedAt(now);
+                employee.setUpdatedAt(now);
+                employee.setContentHash(null);
+                written.add(employee);
+                if (exists) {
+                    outcome.updated++;
+                } else {
+                    outcome.inserted++;
+                }
+            }
+            if (!written.isEmpty()) {
+                if (mode == BulkMode.INSERT) {
+                    employeeMapper.insertBatch(written);
+                } else {
+                    employeeMapper.upsertBatch(written);
+                }
+            }
+        }
+
+        if (!written.isEmpty()) {
+            List<Integer> writtenIds = new ArrayList<>(written.size());
+            for (Employee employee : written) {
+                writtenIds.add(employee.getUserId());
+            }
+            eventPublisher.publishEvent(EmployeeChangeEvent.bulk(writtenIds));
+        }
+        return outcome;
+    }
+
+    /**
+     * 把修改中的非空字段合并到已有记录上
+     */
+    private static void merge(Employee changes, Employee target) {
+        if (changes.getFirstName() != null) {
+            target.setFirstName(changes.getFirstName());
+        }
+        if (changes.getLastName() != null) {
+            target.setLastName(changes.getLastName());
+        }
+        if (changes.getSalary() != null) {
+            target.setSalary(changes.getSalary());
+        }
+        if (changes.getCurrency() != null) {
+            target.setCurrency(changes.getCurrency());
+        }
+        if (changes.getBirthdate() != null) {
+            target.setBirthdate(changes.getBirthdate());
+        }
+        if (changes.getIsActive() != null) {
+            target.setIsActive(changes.getIsActive());
+        }
+        if (changes.getLevel() != null) {
+            target.setLevel(changes.getLevel());
+        }
+    }
+
+    private static void fail(BulkWriteResult result, long index, Integer userId, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() >= MAX_REPORTED_ERRORS) {
+            result.setErrorsTruncated(true);
+            return;
+        }
+        BulkRowError error = new BulkRowError();
+        error.setIndex(index);
+        error.setUserId(userId);
+        error.setMessage(message);
+        result.getErrors().add(error);
+    }
+
+    /**
+     * 请求中的一条记录
+     */
+    private static final class Row {
+
+        private final long index;
+
+        private final Employee employee;
+
+        Row(long index, Employee employee) {
+            this.index = index;
+            this.employee = employee;
+        }
+    }
+
+    /**
+     * 一个数据块的写入统计
+     */
+    private static final class ChunkOutcome {
+
+        private long inserted;
+
+        private long updated;
+
+        private final Map<Row, String> failures = new LinkedHashMap<>();
+    }
+}
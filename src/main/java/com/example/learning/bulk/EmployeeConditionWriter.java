@@ -0,0 +1,156 @@
+package com.example.learning.bulk;
+
+import com.example.learning.entity.Employee;
+import com.example.learning.entity.EmployeeBatchUpdate;
+import com.example.learning.event.EmployeeChangeEvent;
+import com.example.learning.mapper.EmployeeMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+
+/**
+ * 按条件批量修改和删除员工
+ * 用一条 UPDATE/DELETE ... WHERE 语句处理所有符合条件的记录，代替先查询再逐条修改；
+ * 条件和列表查询相同，修改的范围就是用同样条件查询到的员工
+ * 姓氏条件直接交给数据库匹配，不使用名字索引：索引可能比数据库旧，锁定和修改的行必须是此刻真正符合条件的行
+ *
+ * 数据量大时按主键分段执行，每段一个事务，避免一条语句长时间锁住大量的行
+ */
+@Component
+public class EmployeeConditionWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeConditionWriter.class);
+
+    @Autowired
+    private EmployeeMapper employeeMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 每段最多包含的主键数，0表示不分段，整个修改在一条语句中完成
+     */
+    @Value("${employee.bulk.range-size:5000}")
+    private int rangeSize;
+
+    /**
+     * 修改符合条件的员工
+     * 
+     * @param condition 过滤条件
+     * @param changes 要设置的新值，只更新不为空的字段
+     * @return 返回影响的行数
+     * @throws IllegalArgumentException 没有过滤条件或者没有要修改的字段时抛出
+     */
+    public long update(Employee condition, Employee changes) {
+        if (!hasChanges(changes)) {
+            throw new IllegalArgumentException("没有要修改的字段");
+        }
+        EmployeeBatchUpdate update = toBatch(condition);
+        update.setChanges(changes);
+        long affected = execute(update);
+        logger.info("按条件批量修改员工 {} 条", affected);
+        return affected;
+    }
+
+    /**
+     * 删除符合条件的员工
+     * 
+     * @param condition 过滤条件
+     * @return 返回删除的行数
+     * @throws IllegalArgumentException 没有过滤条件时抛出
+     */
+    public long delete(Employee condition) {
+        long affected = execute(toBatch(condition));
+        logger.info("按条件批量删除员工 {} 条", affected);
+        return affected;
+    }
+
+    private long execute(EmployeeBatchUpdate batch) {
+        // 条件中已经有主键列表，范围是有限的，不需要再分段
+        if (rangeSize <= 0 || batch.getUserIds() != null) {
+            return executeRange(batch);
+        }
+        long affected = 0;
+        Integer afterId = null;
+        while (true) {
+            // 按主键索引找出下一段的边界，不带过滤条件，每段的主键数不超过 rangeSize
+            List<Integer> ids = employeeMapper.selectIdsAfter(afterId, rangeSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            boolean last = ids.size() < rangeSize;
+            int upperId = ids.get(ids.size() - 1);
+            batch.setAfterId(afterId);
+            // 最后一段不设上界，执行期间新插入的记录也在范围内
+            batch.setBeforeId(last ? null : upperId + 1);
+            affected += executeRange(batch);
+            if (last) {
+                break;
+            }
+            afterId = upperId;
+        }
+        return affected;
+    }
+
+    /**
+     * 在一个事务中处理一段主键范围
+     * 先锁定并查出将被修改的员工ID，修改之后按ID发布变更事件，缓存和索引在提交后只刷新这些员工
+     */
+    private long executeRange(EmployeeBatchUpdate batch) {
+        Long affected = transactionTemplate.execute(status -> {
+            List<Integer> ids = employeeMapper.selectIdsByConditionForUpdate(batch);
+            if (ids.isEmpty()) {
+                return 0L;
+            }
+            long rows = batch.getChanges() != null
+                ? employeeMapper.updateByCondition(batch)
+                : employeeMapper.deleteByCondition(batch);
+            eventPublisher.publishEvent(EmployeeChangeEvent.bulk(ids));
+            return rows;
+        });
+        return affected != null ? affected : 0;
+    }
+
+    /**
+     * 只复制 Condition_Filters 使用的条件，不带分页等其他参数
+     */
+    private static EmployeeBatchUpdate toBatch(Employee condition) {
+        if (condition.getUserIds() == null
+                && !StringUtils.hasText(condition.getLastName())
+                && !StringUtils.hasText(condition.getCurrency())
+                && condition.getIsActive() == null
+                && condition.getLevel() == null) {
+            // 防止误操作整张表，需要清空时使用 truncateTable
+            throw new IllegalArgumentException("必须至少指定一个条件");
+        }
+        EmployeeBatchUpdate batch = new EmployeeBatchUpdate();
+        batch.setUserIds(condition.getUserIds());
+        batch.setLastName(condition.getLastName());
+        batch.setLastNamePrefix(condition.getLastNamePrefix());
+        batch.setCurrency(condition.getCurrency());
+        batch.setIsActive(condition.getIsActive());
+        batch.setLevel(condition.getLevel());
+        return batch;
+    }
+
+    private static boolean hasChanges(Employee changes) {
+        return changes != null
+            && (changes.getFirstName() != null
+                || changes.getLastName() != null
+                || changes.getSalary() != null
+                || changes.getCurrency() != null
+                || changes.getBirthdate() != null
+                || changes.getIsActive() != null
+                || changes.getLevel() != null);
+    }
+}
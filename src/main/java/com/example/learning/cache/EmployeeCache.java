@@ -0,0 +1,164 @@
+package com.example.learning.cache;
+
+import com.example.learning.entity.Employee;
+import com.example.learning.event.EmployeeChangeEvent;
+import com.example.learning.model.CacheStatistics;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 员工实体缓存
+ * 按员工ID缓存查询结果，放在 getEmployeeById 前面
+ * 
+ * 使用Caffeine实现，淘汰策略是W-TinyLFU：同时考虑访问频率和最近访问时间，
+ * 访问分布很不均匀时比单纯的LRU命中率更高，偶尔的批量扫描也不会把热点数据挤出去
+ * 
+ * 不存在的ID也会缓存（空结果），过期时间更短，防止反复查询不存在的ID打到数据库
+ * 员工数据变更后根据变更事件刷新或删除对应的缓存
+ *
+ * Employee 是可变对象，放入缓存和从缓存返回时都复制一份，
+ * 调用方修改拿到的对象不会影响缓存的内容，也不会影响其他请求
+ */
+@Component
+public class EmployeeCache {
+
+    /**
+     * 最多缓存的员工数
+     */
+    @Value("${employee.cache.maximum-size:10000}")
+    private long maximumSize;
+
+    /**
+     * 缓存的过期时间（秒）
+     */
+    @Value("${employee.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    /**
+     * 不存在的ID的缓存过期时间（秒）
+     */
+    @Value("${employee.cache.negative-ttl-seconds:30}")
+    private long negativeTtlSeconds;
+
+    private Cache<Integer, Optional<Employee>> cache;
+
+    @PostConstruct
+    public void init() {
+        long ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        long negativeTtlNanos = TimeUnit.SECONDS.toNanos(negativeTtlSeconds);
+        cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfter(new Expiry<Integer, Optional<Employee>>() {
+                @Override
+                public long expireAfterCreate(Integer key, Optional<Employee> value, long currentTime) {
+                    return value.isPresent() ? ttlNanos : negativeTtlNanos;
+                }
+
+                @Override
+                public long expireAfterUpdate(Integer key, Optional<Employee> value,
+                                              long currentTime, long currentDuration) {
+                    return value.isPresent() ? ttlNanos : negativeTtlNanos;
+                }
+
+                @Override
+                public long expireAfterRead(Integer key, Optional<Employee> value,
+                                            long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * 从缓存中读取员工，缓存中没有时用loader从数据库加载并放入缓存
+     * 同一个ID同时只会有一个线程去加载
+     * 
+     * @param userId 员工ID
+     * @param loader 缓存未命中时的加载方法，返回null表示员工不存在
+     * @return 返回员工信息的副本，不存在时返回null
+     */
+    public Employee get(Integer userId, Function<Integer, Employee> loader) {
+        return cache.get(userId, id -> Optional.ofNullable(loader.apply(id)))
+            .map(EmployeeCache::copy)
+            .orElse(null);
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * 员工数据变更后刷新缓存
+     * 在事务提交之后执行，保证缓存中不会出现回滚掉的数据
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(EmployeeChangeEvent.DERIVED_DATA_ORDER)
+    public void onEmployeeChanged(EmployeeChangeEvent event) {
+        switch (event.getType()) {
+            case UPDATE:
+                if (event.getAfter() != null) {
+                    cache.put(event.getAfter().getUserId(), Optional.of(copy(event.getAfter())));
+                } else {
+                    cache.invalidateAll(event.getUserIds());
+                }
+                break;
+            case TRUNCATE:
+                cache.invalidateAll();
+                break;
+            default:
+                // 新增要清掉之前缓存的空结果；删除和批量变更不知道最新内容，下次读取时重新加载
+                cache.invalidateAll(event.getUserIds());
+                break;
+        }
+    }
+
+    /**
+     * 复制员工的数据列，查询条件相关的属性不复制
+     * 各个属性都是不可变类型，复制引用就够了
+     */
+    private static Employee copy(Employee source) {
+        Employee employee = new Employee();
+        employee.setUserId(source.getUserId());
+        employee.setFirstName(source.getFirstName());
+        employee.setLastName(source.getLastName());
+        employee.setSalary(source.getSalary());
+        employee.setCurrency(source.getCurrency());
+        employee.setBirthdate(source.getBirthdate());
+        employee.setIsActive(source.getIsActive());
+        employee.setLevel(source.getLevel());
+        employee.setCreatedAt(source.getCreatedAt());
+        employee.setUpdatedAt(source.getUpdatedAt());
+        employee.setContentHash(source.getContentHash());
+        return employee;
+    }
+
+    /**
+     * 获取缓存的命中、未命中和淘汰统计
+     */
+    public CacheStatistics getStatistics() {
+        CacheStats stats = cache.stats();
+        CacheStatistics statistics = new CacheStatistics();
+        statistics.setName("employee");
+        statistics.setSize(cache.estimatedSize());
+        statistics.setHitCount(stats.hitCount());
+        statistics.setMissCount(stats.missCount());
+        statistics.setHitRate(stats.hitRate());
+        statistics.setEvictionCount(stats.evictionCount());
+        return statistics;
+    }
+}
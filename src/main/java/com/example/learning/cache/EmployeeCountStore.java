@@ -0,0 +1,220 @@
+package com.example.learning.cache;
+
+import com.example.learning.entity.Employee;
+import com.example.learning.event.EmployeeChangeEvent;
+import com.example.learning.mapper.EmployeeMapper;
+import com.example.learning.model.EmployeeCountBucket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 员工数量统计
+ * 列表页每次渲染都要计算总记录数，直接执行 COUNT(*) 比查询一页数据还要慢
+ * 
+ * 这里按（级别，在职状态）分组在内存中保存每组的员工数量，
+ * 总数、按级别、按在职状态以及两者组合的数量都可以由这些分组相加得到
+ * 分组数量第一次使用时用一条 GROUP BY 语句加载，之后根据员工变更事件增量维护
+ * 
+ * 按姓氏模糊查询这类不常用的条件仍然执行SQL统计，结果在很短的时间内缓存
+ */
+@Component
+public class EmployeeCountStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeCountStore.class);
+
+    /**
+     * 按条件缓存的SQL统计结果最多保存的条数，超过后全部清空
+     */
+    private static final int MAX_FALLBACK_ENTRIES = 1024;
+
+    @Autowired
+    private EmployeeMapper employeeMapper;
+
+    /**
+     * 不常用条件的统计结果缓存时间（毫秒），0表示不缓存
+     */
+    @Value("${employee.count.fallback-cache-ttl-ms:5000}")
+    private long fallbackCacheTtlMillis;
+
+    /**
+     * 每组的员工数量，键由级别和在职状态组成
+     * 为null表示还没有加载或者已经失效，下次使用时重新加载
+     */
+    private volatile Map<Integer, AtomicLong> buckets;
+
+    /**
+     * 每收到一次变更加1
+     * 加载期间如果有变更提交，加载结果可能已经过时，就不使用这次的结果
+     */
+    private long changeVersion;
+
+    private final Map<String, FallbackCount> fallbackCounts = new ConcurrentHashMap<>();
+
+    /**
+     * 统计符合条件的员工数量
+     * 
+     * @param condition 查询条件
+     * @return 返回符合条件的员工数量
+     */
+    public long count(Employee condition) {
+        if (!isBucketed(condition)) {
+            return countByFallback(condition);
+        }
+        Map<Integer, AtomicLong> current = buckets;
+        if (current == null) {
+            current = load();
+            if (current == null) {
+                // 加载期间数据有变化，这次直接查询数据库
+                return employeeMapper.countByCondition(condition);
+            }
+        }
+        long total = 0;
+        for (Map.Entry<Integer, AtomicLong> entry : current.entrySet()) {
+            int key = entry.getKey();
+            if (condition.getLevel() != null && (key >> 1) != (condition.getLevel() & 0xFF)) {
+                continue;
+            }
+            if (condition.getIsActive() != null && ((key & 1) == 1) != condition.getIsActive()) {
+                continue;
+            }
+            total += entry.getValue().get();
+        }
+        return total;
+    }
+
+    /**
+     * 让统计结果失效，下次使用时从数据库重新加载
+     */
+    public synchronized void invalidate() {
+        changeVersion++;
+        buckets = null;
+        fallbackCounts.clear();
+    }
+
+    /**
+     * 员工数据变更后更新统计
+     * 在事务提交之后执行，回滚的修改不会影响统计；没有事务时立即执行
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(EmployeeChangeEvent.DERIVED_DATA_ORDER)
+    public synchronized void onEmployeeChanged(EmployeeChangeEvent event) {
+        changeVersion++;
+        fallbackCounts.clear();
+        Map<Integer, AtomicLong> current = buckets;
+        if (current == null) {
+            return;
+        }
+        switch (event.getType()) {
+            case INSERT:
+                adjust(current, event.getAfter(), 1);
+                break;
+            case UPDATE:
+                adjust(current, event.getBefore(), -1);
+                adjust(current, event.getAfter(), 1);
+                break;
+            case DELETE:
+                adjust(current, event.getBefore(), -1);
+                break;
+            case TRUNCATE:
+                buckets = new ConcurrentHashMap<>();
+                break;
+            default:
+                // 批量变更不知道修改前的分组，只能重新加载
+                buckets = null;
+                break;
+        }
+    }
+
+    private void adjust(Map<Integer, AtomicLong> current, Employee employee, int delta) {
+        if (employee == null || employee.getLevel() == null || employee.getIsActive() == null) {
+            buckets = null;
+            return;
+        }
+        current.computeIfAbsent(keyOf(employee.getLevel(), employee.getIsActive()), k -> new AtomicLong())
+            .addAndGet(delta);
+    }
+
+    /**
+     * 从数据库加载所有分组的数量
+     * 
+     * @return 返回加载的结果，加载期间有数据变更时返回null
+     */
+    private Map<Integer, AtomicLong> load() {
+        long version;
+        synchronized (this) {
+            version = changeVersion;
+        }
+        Map<Integer, AtomicLong> loaded = new ConcurrentHashMap<>();
+        for (EmployeeCountBucket bucket : employeeMapper.countGroupByLevelAndActive()) {
+            loaded.put(keyOf(bucket.getLevel(), bucket.getIsActive()), new AtomicLong(bucket.getTotal()));
+        }
+        synchronized (this) {
+            if (version != changeVersion) {
+                return null;
+            }
+            buckets = loaded;
+        }
+        logger.debug("已加载员工数量统计，共 {} 个分组", loaded.size());
+        return loaded;
+    }
+
+    private long countByFallback(Employee condition) {
+        if (fallbackCacheTtlMillis <= 0) {
+            return employeeMapper.countByCondition(condition);
+        }
+        String key = fallbackKey(condition);
+        long now = System.currentTimeMillis();
+        FallbackCount cached = fallbackCounts.get(key);
+        if (cached != null && cached.expiresAt > now) {
+            return cached.total;
+        }
+        long total = employeeMapper.countByCondition(condition);
+        if (fallbackCounts.size() >= MAX_FALLBACK_ENTRIES) {
+            fallbackCounts.clear();
+        }
+        fallbackCounts.put(key, new FallbackCount(total, now + fallbackCacheTtlMillis));
+        return total;
+    }
+
+    /**
+     * 只有级别和在职状态两个条件（或者没有条件）时才能用分组数量计算
+     */
+    private static boolean isBucketed(Employee condition) {
+        return condition.getUserId() == null
+            && !StringUtils.hasLength(condition.getFirstName())
+            && !StringUtils.hasLength(condition.getLastName())
+            && condition.getSalary() == null
+            && !StringUtils.hasLength(condition.getCurrency())
+            && condition.getBirthdate() == null;
+    }
+
+    private static String fallbackKey(Employee condition) {
+        return condition.getUserId() + "|" + condition.getFirstName() + "|" + condition.getLastName()
+            + "|" + condition.getSalary() + "|" + condition.getCurrency() + "|" + condition.getBirthdate()
+            + "|" + condition.getIsActive() + "|" + condition.getLevel();
+    }
+
+    private static int keyOf(Byte level, Boolean isActive) {
+        return ((level & 0xFF) << 1) | (isActive ? 1 : 0);
+    }
+
+    private static class FallbackCount {
+        final long total;
+        final long expiresAt;
+
+        FallbackCount(long total, long expiresAt) {
+            this.total = total;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.learning.cache;
+
+import com.example.learning.event.EmployeeChangeEvent;
+import com.example.learning.model.DataVersion;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 员工表的版本号
+ * 任何写操作（新增、修改、删除、同步、批量写入、清空）都会发布变更事件，
+ * 每个事件让版本号加一，列表接口据此判断客户端缓存的结果是否还有效，
+ * 没有变化时直接返回304，不需要查询数据库，也不需要序列化结果
+ *
+ * 版本号只在内存中，ETag里带上启动时间，重启后不会和之前发出的ETag重复
+ */
+@Component
+public class EmployeeVersion {
+
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+
+    private volatile DataVersion current;
+
+    private long version;
+
+    public EmployeeVersion() {
+        // 启动前的变化无从得知，最后修改时间从启动时算起
+        current = snapshot(0, System.currentTimeMillis());
+    }
+
+    /**
+     * 当前版本
+     */
+    public DataVersion current() {
+        return current;
+    }
+
+    /**
+     * 在事务提交之后执行，回滚的修改不会改变版本；没有事务时立即执行
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(EmployeeChangeEvent.VERSION_ORDER)
+    public synchronized void onEmployeeChanged(EmployeeChangeEvent event) {
+        version++;
+        current = snapshot(version, System.currentTimeMillis());
+    }
+
+    private DataVersion snapshot(long version, long lastModified) {
+        DataVersion snapshot = new DataVersion();
+        snapshot.setEtag("W/\"" + bootId + "-" + version + "\"");
+        snapshot.setLastModified(lastModified);
+        return snapshot;
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.learning.cache;
+
+import com.example.learning.datasource.PrimaryPinning;
+import com.example.learning.event.EmployeeChangeEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.CollectionUtils;
+import org.springframework.web.servlet.View;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.thymeleaf.spring5.view.ThymeleafViewResolver;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+
+/**
+ * 员工列表页面的渲染结果缓存
+ * 前几页在两次写操作之间会被请求成千上万次，每次都要查询当前页和记录数，再用Thymeleaf渲染一遍，
+ * 这里把渲染好的HTML按页面、条件、页码和每页数量缓存起来，命中时直接输出，不查询数据库，也不经过模板引擎
+ *
+ * 缓存的键带有员工表的版本号（见 EmployeeVersion），版本号在查询数据之前取得，
+ * 任何写操作之后旧版本的页面都不会再命中，即使它是在写操作提交之后才放进缓存的
+ * 未命中时这次请求的查询固定使用主库，从库上延迟的旧数据不会被缓存下来
+ * 带有提示信息（同步、新增、清空的结果）的页面不缓存
+ *
+ * 命中率等指标以 cache_gets{cache="employee.page"} 等名字注册到 /actuator/prometheus
+ */
+@Component
+public class RenderedPageCache {
+
+    /**
+     * 缓存的页面最多占用的字节数
+     */
+    @Value("${employee.page-cache.maximum-bytes:16777216}")
+    private long maximumBytes;
+
+    @Autowired
+    private EmployeeVersion employeeVersion;
+
+    @Autowired
+    private ThymeleafViewResolver viewResolver;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, CachedPage> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+            .maximumWeight(maximumBytes)
+            .<String, CachedPage>weigher((key, page) -> key.length() + page.content.length)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "employee.page");
+    }
+
+    /**
+     * 生成缓存的键，必须在查询数据之前调用
+     *
+     * @param parts 页面名称以及影响页面内容的所有参数，比如条件、页码和每页数量
+     * @return 带有当前版本号的键
+     */
+    public String key(Object... parts) {
+        StringBuilder key = new StringBuilder(employeeVersion.current().getEtag());
+        for (Object part : parts) {
+            key.append('|');
+            if (part != null) {
+                key.append(part);
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * 查找缓存的页面，没有命中时这次请求剩下的查询使用主库
+     *
+     * @param key 由 key 方法生成的键
+     * @param request 当前请求
+     * @return 直接输出缓存内容的视图，没有缓存或者页面需要显示提示信息时返回null
+     */
+    public View get(String key, HttpServletRequest request) {
+        if (hasFlashAttributes(request)) {
+            return null;
+        }
+        CachedPage page = cache.getIfPresent(key);
+        if (page == null) {
+            PrimaryPinning.pin();
+        }
+        return page;
+    }
+
+    /**
+     * 渲染页面并放入缓存
+     *
+     * @param key 查询数据之前由 key 方法生成的键
+     * @param viewName 模板名称，比如 employee/list
+     * @param request 当前请求
+     * @return 渲染页面的视图，页面在输出的同时放入缓存
+     * @throws Exception 找不到模板时抛出
+     */
+    public View render(String key, String viewName, HttpServletRequest request) throws Exception {
+        View view = viewResolver.resolveViewName(viewName, RequestContextUtils.getLocale(request));
+        if (view == null) {
+            throw new IllegalStateException("找不到模板: " + viewName);
+        }
+        if (hasFlashAttributes(request)) {
+            return view;
+        }
+        return new CachingView(key, view);
+    }
+
+    /**
+     * 员工数据变更后，旧版本的页面已经不会再命中，直接清空释放内存
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(EmployeeChangeEvent.VERSION_ORDER)
+    public void onEmployeeChanged(EmployeeChangeEvent event) {
+        cache.invalidateAll();
+    }
+
+    private static boolean hasFlashAttributes(HttpServletRequest request) {
+        return !CollectionUtils.isEmpty(RequestContextUtils.getInputFlashMap(request));
+    }
+
+    /**
+     * 用模板渲染页面，同时把输出的内容记录下来放入缓存
+     */
+    private final class CachingView implements View {
+
+        private final String key;
+
+        private final View view;
+
+        CachingView(String key, View view) {
+            this.key = key;
+            this.view = view;
+        }
+
+        @Override
+        public String getContentType() {
+            return view.getContentType();
+        }
+
+        @Override
+        public void render(Map<String, ?> model, HttpServletRequest request, HttpServletResponse response)
+                throws Exception {
+            ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+            view.render(model, request, wrapper);
+            if (wrapper.getStatus() == HttpStatus.OK.value()) {
+                cache.put(key, new CachedPage(wrapper.getContentType(), wrapper.getContentAsByteArray()));
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    /**
+     * 缓存的页面，直接输出渲染好的内容
+     */
+    private static final class CachedPage implements View {
+
+        private final String contentType;
+
+        private final byte[] content;
+
+        CachedPage(String contentType, byte[] content) {
+            this.contentType = contentType;
+            this.content = content;
+        }
+
+        @Override
+        public String getContentType() {
+            return contentType;
+        }
+
+        @Override
+        public void render(Map<String, ?> model, HttpServletRequest request, HttpServletResponse response)
+                throws Exception {
+            response.setContentType(contentType);
+            response.setContentLength(content.length);
+            response.getOutputStream().write(content);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.learning.config;
+
+import com.example.learning.datasource.ReadWriteRoutingDataSource;
+import com.example.learning.datasource.RoutingDataSourceProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.ibatis.mapping.DatabaseIdProvider;
+import org.apache.ibatis.mapping.VendorDatabaseIdProvider;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 数据源配置类
+ * 主库按 spring.datasource.* 创建，从库按 employee.datasource.replicas 创建，
+ * 应用使用的是包在 LazyConnectionDataSourceProxy 里的读写分离数据源，
+ * 事务管理器和MyBatis都通过它获取连接
+ */
+@Configuration
+@EnableConfigurationProperties(RoutingDataSourceProperties.class)
+public class DataSourceConfig {
+
+    /**
+     * 主库，连接池参数使用 spring.datasource.hikari.*
+     * 数据库迁移（Flyway）直接在主库上执行，从库通过复制得到
+     */
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * 读写分离数据源，关闭应用时一起关闭从库的连接池
+     * 健康检查由Spring Boot为这个数据源（AbstractRoutingDataSource）生成，
+     * /actuator/health 的 db 下面按路由键分别列出 primary 和每个 replica-N
+     */
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(HikariDataSource primaryDataSource,
+                                                       DataSourceProperties properties,
+                                                       RoutingDataSourceProperties routingProperties) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        List<RoutingDataSourceProperties.Replica> replicaProperties = routingProperties.getReplicas();
+        for (int i = 0; i < replicaProperties.size(); i++) {
+            replicas.add(createReplica(i + 1, replicaProperties.get(i), primaryDataSource, properties));
+        }
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicas, routingProperties.getSelection());
+    }
+
+    /**
+     * 从库连接池的 hikaricp_* 指标
+     * 从库的连接池不是Bean，Spring Boot不会为它们注册指标，这里给每个从库设置Micrometer的指标收集器，
+     * 指标带有 pool="replica-N" 标签
+     * 注册表创建之后才绑定，创建数据源时不能依赖注册表：
+     * 注册表依赖Spring Boot的连接池指标，连接池指标又依赖所有的数据源，会形成循环依赖
+     */
+    @Bean
+    public MeterBinder replicaPoolMetrics(ReadWriteRoutingDataSource routingDataSource) {
+        return registry -> {
+            for (Map.Entry<Object, DataSource> target : routingDataSource.getResolvedDataSources().entrySet()) {
+                if (ReadWriteRoutingDataSource.PRIMARY.equals(target.getKey())
+                    || !(target.getValue() instanceof HikariDataSource)) {
+                    continue;
+                }
+                HikariDataSource replica = (HikariDataSource) target.getValue();
+                if (replica.getMetricsTrackerFactory() == null && replica.getMetricRegistry() == null) {
+                    replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+                }
+            }
+        };
+    }
+
+    /**
+     * 应用实际使用的数据源
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * 按数据库类型选择映射文件中带 databaseId 的语句，比如只在MySQL上逐行读取的导出
+     */
+    @Bean
+    public DatabaseIdProvider databaseIdProvider() {
+        Properties vendors = new Properties();
+        vendors.setProperty("MySQL", "mysql");
+        vendors.setProperty("H2", "h2");
+        VendorDatabaseIdProvider provider = new VendorDatabaseIdProvider();
+        provider.setProperties(vendors);
+        return provider;
+    }
+
+    private static HikariDataSource createReplica(int index, RoutingDataSourceProperties.Replica replica,
+                                                  HikariDataSource primary, DataSourceProperties properties) {
+        if (!StringUtils.hasText(replica.getUrl())) {
+            throw new IllegalStateException("从库 " + index + " 没有配置url");
+        }
+        HikariDataSource dataSource = DataSourceBuilder.create()
+            .type(HikariDataSource.class)
+            .url(replica.getUrl())
+            .username(replica.getUsername() != null ? replica.getUsername() : properties.determineUsername())
+            .password(replica.getPassword() != null ? replica.getPassword() : properties.determinePassword())
+            .driverClassName(replica.getDriverClassName() != null
+                ? replica.getDriverClassName() : properties.determineDriverClassName())
+            .build();
+        dataSource.setPoolName("replica-" + index);
+        // 没有配置的连接池参数在连接池启动前是-1，这时保留Hikari的默认值
+        int maximumPoolSize = replica.getMaximumPoolSize() != null
+            ? replica.getMaximumPoolSize() : primary.getMaximumPoolSize();
+        if (maximumPoolSize > 0) {
+            dataSource.setMaximumPoolSize(maximumPoolSize);
+        }
+        if (primary.getMinimumIdle() >= 0) {
+            dataSource.setMinimumIdle(maximumPoolSize > 0
+                ? Math.min(primary.getMinimumIdle(), maximumPoolSize) : primary.getMinimumIdle());
+        }
+        dataSource.setConnectionTimeout(primary.getConnectionTimeout());
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.learning.config;
+
+import com.example.learning.projection.EmployeeField;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Jackson配置类
+ * 对Spring Boot创建的所有ObjectMapper生效，包括接口使用的JSON、Smile、CBOR转换器
+ */
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Employee上有 @JsonFilter，没有指定过滤条件时输出全部属性
+     * 按字段查询的接口再为单个响应设置过滤条件，见 EmployeeFieldsResponseBodyAdvice
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer employeeFilterCustomizer() {
+        return builder -> builder.filters(EmployeeField.ALL_FIELDS);
+    }
+}
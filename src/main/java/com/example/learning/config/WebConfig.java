@@ -1,10 +1,31 @@
 package com.example.learning.config;
 
+import com.example.learning.format.EmployeeAvroHttpMessageConverter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.format.FormatterRegistry;
 import org.springframework.format.datetime.standard.DateTimeFormatterRegistrar;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+import java.util.concurrent.Callable;
+
 /**
  * Web配置类
  * 用于配置Spring MVC的一些全局设置
@@ -12,6 +33,18 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    /**
+     * 请求属性，值为毫秒数（Long），这个请求的异步处理（比如 StreamingResponseBody）使用这个超时时间
+     * 处理时间很长的少数接口单独设置，其他请求仍然使用默认的超时时间
+     */
+    public static final String ASYNC_TIMEOUT_ATTRIBUTE = WebConfig.class.getName() + ".asyncTimeout";
+
+    /**
+     * Spring Boot按 spring.jackson.* 配置好的构建器，二进制格式和JSON使用相同的日期格式等设置
+     */
+    @Autowired
+    private Jackson2ObjectMapperBuilder objectMapperBuilder;
+
     /**
      * 配置全局的日期时间格式化器
      * 这样所有的日期时间字段都会使用统一的格式进行转换
@@ -27,4 +60,54 @@ public class WebConfig implements WebMvcConfigurer {
         registrar.setDateTimeFormatter(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
         registrar.registerFormatters(registry);
     }
-} 
\ No newline at end of file
+
+    /**
+     * 按请求头 Accept 返回二进制格式：
+     * application/x-jackson-smile、application/cbor 适用于所有接口，
+     * application/avro 只适用于返回员工列表的接口
+     * 追加在JSON之后，Accept 为 *&#47;* 或者没有时仍然返回JSON
+     * Spring MVC默认注册的Smile、CBOR转换器不使用 spring.jackson.* 配置，换成按构建器创建的
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(converter -> converter instanceof MappingJackson2SmileHttpMessageConverter
+            || converter instanceof MappingJackson2CborHttpMessageConverter);
+        converters.add(new MappingJackson2SmileHttpMessageConverter(
+            objectMapperBuilder.factory(new SmileFactory()).build()));
+        converters.add(new MappingJackson2CborHttpMessageConverter(
+            objectMapperBuilder.factory(new CBORFactory()).build()));
+        converters.add(new EmployeeAvroHttpMessageConverter());
+    }
+
+    /**
+     * 员工接口的同一个地址按请求头 Accept 返回不同格式，响应头加上 Vary: Accept，
+     * 共享缓存按格式分别缓存，不会把CBOR返回给请求JSON的客户端
+     * 在处理请求之前添加，304响应同样带有这个响应头
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                return true;
+            }
+        }).addPathPatterns("/api/employees/**", "/api/async/employees/**");
+    }
+
+    /**
+     * 开始异步处理之前，按请求属性 ASYNC_TIMEOUT_ATTRIBUTE 设置这个请求的超时时间
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                Object timeout = request.getAttribute(ASYNC_TIMEOUT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+                if (timeout instanceof Long && request instanceof AsyncWebRequest) {
+                    ((AsyncWebRequest) request).setTimeout((Long) timeout);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.learning.controller;
+
+import com.example.learning.model.SalaryAggregate;
+import com.example.learning.model.SalaryQuery;
+import com.example.learning.service.AnalyticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 员工统计接口
+ * 仪表盘直接获取汇总结果，不再拉取全部员工后自己汇总
+ */
+@RestController
+@RequestMapping("/api/employees/analytics")
+public class AnalyticsController {
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    /**
+     * 工资统计
+     * 例如 /api/employees/analytics/salary?groupBy=level,currency&isActive=true&percentiles=50,90,99
+     */
+    @GetMapping("/salary")
+    public ResponseEntity<List<SalaryAggregate>> aggregateSalary(
+            @RequestParam(required = false) List<String> groupBy,
+            @RequestParam(required = false) Byte level,
+            @RequestParam(required = false) String currency,
+            @RequestParam(required = false) Boolean isActive,
+            @RequestParam(required = false) List<Double> percentiles) {
+        SalaryQuery query = new SalaryQuery();
+        query.setGroupBy(groupBy);
+        query.setLevel(level);
+        query.setCurrency(currency);
+        query.setIsActive(isActive);
+        query.setPercentiles(percentiles);
+        try {
+            return ResponseEntity.ok(analyticsService.aggregateSalary(query));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.learning.controller;
+
+import com.example.learning.async.DatabaseExecutor;
+import com.example.learning.entity.Employee;
+import com.example.learning.model.CursorPage;
+import com.example.learning.service.EmployeeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+
+/**
+ * 员工接口的异步版本
+ * 和 EmployeeController 的接口相同，但是查询和修改在 DatabaseExecutor 的线程池中执行，
+ * 不占用Tomcat的请求线程；数据库过载时快速返回503，而不是让所有请求排队等待
+ * 新增、修改和删除使用 submitWrite，返回503时修改一定没有执行，可以放心重试
+ */
+@RestController
+@RequestMapping("/api/async/employees")
+public class EmployeeAsyncController {
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private DatabaseExecutor databaseExecutor;
+
+    @GetMapping("/{userId}")
+    public DeferredResult<ResponseEntity<Employee>> getEmployeeById(@PathVariable Integer userId) {
+        return databaseExecutor.submit(() -> {
+            Employee employee = employeeService.getEmployeeById(userId);
+            return employee != null ? ResponseEntity.ok(employee) : ResponseEntity.notFound().build();
+        });
+    }
+
+    @GetMapping
+    public DeferredResult<ResponseEntity<List<Employee>>> getAllEmployees() {
+        return databaseExecutor.submit(() -> ResponseEntity.ok(employeeService.getAllEmployees()));
+    }
+
+    @GetMapping("/level/{level}")
+    public DeferredResult<ResponseEntity<List<Employee>>> getEmployeesByLevel(@PathVariable Byte level) {
+        return databaseExecutor.submit(() -> ResponseEntity.ok(employeeService.getEmployeesByLevel(level)));
+    }
+
+    @GetMapping("/active")
+    public DeferredResult<ResponseEntity<List<Employee>>> getActiveEmployees() {
+        return databaseExecutor.submit(() -> ResponseEntity.ok(employeeService.getActiveEmployees()));
+    }
+
+    @GetMapping("/search")
+    public DeferredResult<ResponseEntity<List<Employee>>> searchEmployees(
+            @RequestParam(required = false) String lastName,
+            @RequestParam(required = false) Boolean isActive,
+            @RequestParam(required = false) Byte level,
+            @RequestParam(defaultValue = "false") boolean prefix) {
+        Employee condition = new Employee();
+        condition.setLastName(lastName);
+        condition.setLastNamePrefix(prefix);
+        condition.setIsActive(isActive);
+        condition.setLevel(level);
+        return databaseExecutor.submit(() -> ResponseEntity.ok(employeeService.getEmployeesByCondition(condition)));
+    }
+
+    @GetMapping("/scroll")
+    public DeferredResult<ResponseEntity<CursorPage<Employee>>> scrollEmployees(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String lastName,
+            @RequestParam(required = false) Boolean isActive,
+            @RequestParam(required = false) Byte level) {
+        Employee condition = new Employee();
+        condition.setLastName(lastName);
+        condition.setIsActive(isActive);
+        condition.setLevel(level);
+        return databaseExecutor.submit(() -> {
+            try {
+                return ResponseEntity.ok(employeeService.getEmployeesByCursor(condition, cursor, size));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        });
+    }
+
+    @PostMapping
+    public DeferredResult<ResponseEntity<Boolean>> addEmployee(@RequestBody Employee employee) {
+        return databaseExecutor.submitWrite(() -> ResponseEntity.ok(employeeService.addEmployee(employee)));
+    }
+
+    @PutMapping("/{userId}")
+    public DeferredResult<ResponseEntity<Boolean>> updateEmployee(
+            @PathVariable Integer userId,
+            @RequestBody Employee employee) {
+        employee.setUserId(userId);
+        return databaseExecutor.submitWrite(() -> ResponseEntity.ok(employeeService.updateEmployee(employee)));
+    }
+
+    @DeleteMapping("/{userId}")
+    public DeferredResult<ResponseEntity<Boolean>> deleteEmployee(@PathVariable Integer userId) {
+        return databaseExecutor.submitWrite(() -> ResponseEntity.ok(employeeService.deleteEmployee(userId)));
+    }
+}
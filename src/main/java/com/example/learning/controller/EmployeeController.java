@@ -1,12 +1,36 @@
 package com.example.learning.controller;
 
+import com.example.learning.bulk.BulkMode;
+import com.example.learning.config.WebConfig;
+import com.example.learning.datasource.PrimaryPinning;
 import com.example.learning.entity.Employee;
+import com.example.learning.export.ExportFormat;
+import com.example.learning.model.BulkWriteResult;
+import com.example.learning.model.CacheStatistics;
+import com.example.learning.model.CursorPage;
+import com.example.learning.model.DataVersion;
+import com.example.learning.model.SyncResult;
+import com.example.learning.projection.EmployeeField;
 import com.example.learning.service.EmployeeService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/employees")
@@ -14,41 +38,185 @@ public class EmployeeController {
     // add some comment here updated by Allen
     @Autowired
     private EmployeeService employeeService;
+
+    /**
+     * 导出的超时时间（毫秒），数据量大时响应时间较长，只对导出放宽异步超时
+     */
+    @Value("${employee.export.timeout-ms:1800000}")
+    private long exportTimeoutMs;
+
     @GetMapping("/test")
     public Employee test(@RequestBody Employee employee) {
        return employee;
     }
+    /**
+     * 查询单个员工，支持条件请求
+     * ETag和Last-Modified由员工的更新时间和内容得出，没有变化时返回304，不再序列化员工数据
+     * 单个员工从缓存中读取，fields 只过滤响应中的属性
+     */
     @GetMapping("/{userId}")
-    public ResponseEntity<Employee> getEmployeeById(@PathVariable Integer userId) {
+    public ResponseEntity<Employee> getEmployeeById(
+            @PathVariable Integer userId,
+            @RequestParam(required = false) String fields,
+            WebRequest request) {
+        try {
+            EmployeeField.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
         Employee employee = employeeService.getEmployeeById(userId);
-        return employee != null ? ResponseEntity.ok(employee) : ResponseEntity.notFound().build();
+        if (employee == null) {
+            return ResponseEntity.notFound().build();
+        }
+        long lastModified = employee.getUpdatedAt() != null
+                ? employee.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+        if (request.checkNotModified(representationEtag(etagOf(employee), request), lastModified)) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(employee);
     }
 
+    /**
+     * 查询所有员工
+     * 列表接口都支持 fields 参数，比如 fields=userId,lastName,isActive，只查询并返回这些字段
+     */
     @GetMapping
-    public ResponseEntity<List<Employee>> getAllEmployees() throws Exception {
-        return ResponseEntity.ok(employeeService.getAllEmployees());
+    public ResponseEntity<List<Employee>> getAllEmployees(
+            @RequestParam(required = false) String fields,
+            WebRequest request) throws Exception {
+        Employee condition;
+        try {
+            condition = projection(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (notModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(condition.getFields() == null
+                ? employeeService.getAllEmployees() : employeeService.getEmployeesByCondition(condition));
     }
 
     @GetMapping("/level/{level}")
-    public ResponseEntity<List<Employee>> getEmployeesByLevel(@PathVariable Byte level) {
-        return ResponseEntity.ok(employeeService.getEmployeesByLevel(level));
+    public ResponseEntity<List<Employee>> getEmployeesByLevel(
+            @PathVariable Byte level,
+            @RequestParam(required = false) String fields,
+            WebRequest request) {
+        Employee condition;
+        try {
+            condition = projection(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (notModified(request)) {
+            return null;
+        }
+        condition.setLevel(level);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(condition.getFields() == null
+                ? employeeService.getEmployeesByLevel(level) : employeeService.getEmployeesByCondition(condition));
     }
 
     @GetMapping("/active")
-    public ResponseEntity<List<Employee>> getActiveEmployees() {
-        return ResponseEntity.ok(employeeService.getActiveEmployees());
+    public ResponseEntity<List<Employee>> getActiveEmployees(
+            @RequestParam(required = false) String fields,
+            WebRequest request) {
+        Employee condition;
+        try {
+            condition = projection(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (notModified(request)) {
+            return null;
+        }
+        condition.setIsActive(true);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(condition.getFields() == null
+                ? employeeService.getActiveEmployees() : employeeService.getEmployeesByCondition(condition));
     }
 
     @GetMapping("/search")
     public ResponseEntity<List<Employee>> searchEmployees(
             @RequestParam(required = false) String lastName,
             @RequestParam(required = false) Boolean isActive,
-            @RequestParam(required = false) Byte level) {
+            @RequestParam(required = false) Byte level,
+            @RequestParam(defaultValue = "false") boolean prefix,
+            @RequestParam(required = false) String fields,
+            WebRequest request) {
+        Employee condition;
+        try {
+            condition = projection(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (notModified(request)) {
+            return null;
+        }
+        condition.setLastName(lastName);
+        condition.setLastNamePrefix(prefix);
+        condition.setIsActive(isActive);
+        condition.setLevel(level);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache())
+                .body(employeeService.getEmployeesByCondition(condition));
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CacheStatistics> getCacheStatistics() {
+        return ResponseEntity.ok(employeeService.getCacheStatistics());
+    }
+
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPage<Employee>> scrollEmployees(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String lastName,
+            @RequestParam(required = false) Boolean isActive,
+            @RequestParam(required = false) Byte level,
+            @RequestParam(required = false) String fields,
+            WebRequest request) {
+        Employee condition;
+        try {
+            condition = projection(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (notModified(request)) {
+            return null;
+        }
+        condition.setLastName(lastName);
+        condition.setIsActive(isActive);
+        condition.setLevel(level);
+        try {
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache())
+                    .body(employeeService.getEmployeesByCursor(condition, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportEmployees(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String lastName,
+            @RequestParam(required = false) Boolean isActive,
+            @RequestParam(required = false) Byte level,
+            WebRequest request) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.of(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
         Employee condition = new Employee();
         condition.setLastName(lastName);
         condition.setIsActive(isActive);
         condition.setLevel(level);
-        return ResponseEntity.ok(employeeService.getEmployeesByCondition(condition));
+        StreamingResponseBody body = out -> employeeService.exportEmployees(condition, exportFormat, out);
+        request.setAttribute(WebConfig.ASYNC_TIMEOUT_ATTRIBUTE, exportTimeoutMs, RequestAttributes.SCOPE_REQUEST);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"employees." + exportFormat.getExtension() + "\"")
+                .body(body);
     }
 
     @PostMapping
@@ -56,6 +224,82 @@ public class EmployeeController {
         return ResponseEntity.ok(employeeService.addEmployee(employee));
     }
 
+    /**
+     * 批量写入员工
+     * 请求体是员工的JSON数组，或者每行一个员工的NDJSON（Content-Type: application/x-ndjson），
+     * 例如 POST /api/employees/bulk?mode=upsert
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkWriteResult> bulkWriteEmployees(
+            @RequestParam(defaultValue = "upsert") String mode,
+            InputStream body) throws IOException {
+        BulkMode bulkMode;
+        try {
+            bulkMode = BulkMode.of(mode);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(employeeService.bulkWriteEmployees(body, bulkMode));
+    }
+
+    /**
+     * 按条件批量修改员工，请求体中不为空的字段是要设置的新值
+     * 例如 PATCH /api/employees?level=3 请求体 {"isActive": false}
+     */
+    @PatchMapping
+    public ResponseEntity<Long> updateEmployeesByCondition(
+            @RequestParam(required = false) String lastName,
+            @RequestParam(required = false) Boolean isActive,
+            @RequestParam(required = false) Byte level,
+            @RequestParam(required = false) String currency,
+            @RequestBody Employee changes) {
+        try {
+            return ResponseEntity.ok(employeeService.updateEmployeesByCondition(
+                    condition(lastName, isActive, level, currency), changes));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * 按条件批量删除员工
+     * 例如 DELETE /api/employees?currency=PLN&isActive=false
+     */
+    @DeleteMapping
+    public ResponseEntity<Long> deleteEmployeesByCondition(
+            @RequestParam(required = false) String lastName,
+            @RequestParam(required = false) Boolean isActive,
+            @RequestParam(required = false) Byte level,
+            @RequestParam(required = false) String currency) {
+        try {
+            return ResponseEntity.ok(employeeService.deleteEmployeesByCondition(
+                    condition(lastName, isActive, level, currency)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * 列表查询的条件，fields 不为空时只查询选择的字段
+     * 响应中的属性由 EmployeeFieldsResponseBodyAdvice 按同一个参数过滤
+     *
+     * @throws IllegalArgumentException fields 中有未知的字段时抛出
+     */
+    private static Employee projection(String fields) {
+        Employee condition = new Employee();
+        condition.setFields(EmployeeField.parse(fields));
+        return condition;
+    }
+
+    private static Employee condition(String lastName, Boolean isActive, Byte level, String currency) {
+        Employee condition = new Employee();
+        condition.setLastName(lastName);
+        condition.setIsActive(isActive);
+        condition.setLevel(level);
+        condition.setCurrency(currency);
+        return condition;
+    }
+
     @PutMapping("/{userId}")
     public ResponseEntity<Boolean> updateEmployee(
             @PathVariable Integer userId,
@@ -69,9 +313,69 @@ public class EmployeeController {
         return ResponseEntity.ok(employeeService.deleteEmployee(userId));
     }
 
+    /**
+     * 全量同步，已有同步正在执行时返回409
+     */
     @GetMapping("/sync")
     public ResponseEntity<Boolean> syncEmployee(){
-        boolean result = employeeService.syncEmployee();
+        SyncResult result = employeeService.syncEmployee();
+        if (result.isAlreadyRunning()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(false);
+        }
+        return ResponseEntity.ok(result.isSuccess());
+    }
+
+    /**
+     * 增量同步，已有同步正在执行时返回409
+     */
+    @PostMapping("/sync/incremental")
+    public ResponseEntity<SyncResult> syncEmployeeIncremental(
+            @RequestParam(defaultValue = "false") boolean deleteMissing) {
+        SyncResult result = employeeService.syncEmployeeIncremental(deleteMissing);
+        if (result.isAlreadyRunning()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(result);
+        }
         return ResponseEntity.ok(result);
     }
+
+    /**
+     * 列表的条件请求
+     * 员工表从客户端上次请求之后没有任何写操作时返回true，这时响应已经设置为304，
+     * 不需要再查询数据库；版本在查询之前读取，查询期间发生的修改会在下次请求时体现
+     *
+     * 版本号在主库提交时就已经改变，从库可能还没有复制到这次修改，
+     * 带着新ETag的列表如果从从库读取，旧数据会在之后的304中一直有效，所以这次请求的查询固定使用主库
+     */
+    private boolean notModified(WebRequest request) {
+        DataVersion version = employeeService.getDataVersion();
+        if (request.checkNotModified(representationEtag(version.getEtag(), request), version.getLastModified())) {
+            return true;
+        }
+        PrimaryPinning.pin();
+        return false;
+    }
+
+    /**
+     * 同一个地址按请求头 Accept 返回JSON、Smile、CBOR或Avro，不同格式的ETag不能相同，
+     * 否则304会把缓存中另一种格式的内容当成有效的；ETag中加上 Accept 的哈希值，
+     * Accept 相同时内容协商的结果也相同，响应头 Vary: Accept 见 WebConfig
+     */
+    private static String representationEtag(String etag, WebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (!StringUtils.hasText(accept)) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + "-" + Integer.toHexString(accept.hashCode()) + "\"";
+    }
+
+    /**
+     * 单个员工的ETag
+     * 更新时间只精确到秒，同一秒内的两次修改再加上内容的哈希值区分
+     */
+    private static String etagOf(Employee employee) {
+        int contentHash = Objects.hash(employee.getFirstName(), employee.getLastName(), employee.getSalary(),
+                employee.getCurrency(), employee.getBirthdate(), employee.getIsActive(), employee.getLevel());
+        return "\"" + employee.getUserId() + "-" + employee.getUpdatedAt() + "-"
+                + Integer.toHexString(contentHash) + "\"";
+    }
 }
@@ -1,16 +1,26 @@
 package com.example.learning.controller;
 
+import com.example.learning.cache.RenderedPageCache;
 import com.example.learning.entity.Employee;
+import com.example.learning.model.CursorPage;
+import com.example.learning.model.SyncJobStatus;
 import com.example.learning.service.EmployeeService;
+import com.example.learning.service.SyncJobService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.View;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import javax.servlet.http.HttpServletRequest;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -28,6 +38,12 @@ public class EmployeeViewController {
     @Autowired  // 自动注入员工服务，这样我们就可以使用它的功能
     private EmployeeService employeeService;
 
+    @Autowired  // 自动注入同步任务服务，同步在后台线程中执行
+    private SyncJobService syncJobService;
+
+    @Autowired  // 列表页面的渲染结果缓存，数据没有变化时直接输出上次渲染的页面
+    private RenderedPageCache pageCache;
+
     /**
      * 显示员工列表页面
      * 这个方法是当用户访问 /employees 时会被调用
@@ -35,13 +51,22 @@ public class EmployeeViewController {
      * @param pageNum 当前页码，默认是第1页
      * @param pageSize 每页显示多少条数据，默认是10条
      * @param model 用于向页面传递数据的对象
-     * @return 返回要显示的页面名称
+     * @param request 当前请求，用于查找缓存的页面
+     * @return 返回要显示的页面
      */
     @GetMapping  // 处理GET请求，当访问/employees时调用此方法
-    public String listEmployees(
+    public View listEmployees(
             @RequestParam(defaultValue = "1") int pageNum,  // 如果没有指定页码，默认是第1页
             @RequestParam(defaultValue = "10") int pageSize,  // 如果没有指定每页数量，默认是10条
-            Model model) {  // model用于向页面传递数据
+            Model model,  // model用于向页面传递数据
+            HttpServletRequest request) throws Exception {
+        
+        // 数据没有变化时直接返回缓存的页面，不查询数据库
+        String cacheKey = pageCache.key("list", pageNum, pageSize);
+        View cached = pageCache.get(cacheKey, request);
+        if (cached != null) {
+            return cached;
+        }
         
         // 创建一个空的查询条件对象
         Employee condition = new Employee();
@@ -62,7 +87,7 @@ public class EmployeeViewController {
         model.addAttribute("totalCount", totalCount);  // 总记录数
         model.addAttribute("totalPages", totalPages);  // 总页数
         
-        return "employee/list";  // 返回要显示的页面名称
+        return pageCache.render(cacheKey, "employee/list", request);  // 渲染页面，同时放入缓存
     }
 
     /**
@@ -76,16 +101,24 @@ public class EmployeeViewController {
      * @param pageNum 当前页码
      * @param pageSize 每页显示数量
      * @param model 用于向页面传递数据的对象
-     * @return 返回要显示的页面名称
+     * @param request 当前请求，用于查找缓存的页面
+     * @return 返回要显示的页面
      */
     @GetMapping("/search")  // 处理GET请求，当访问/employees/search时调用此方法
-    public String searchEmployees(
+    public View searchEmployees(
             @RequestParam(required = false) String lastName,  // 姓氏，不是必须的
             @RequestParam(required = false) Byte level,  // 级别，不是必须的
             @RequestParam(required = false) Boolean isActive,  // 是否在职，不是必须的
             @RequestParam(defaultValue = "1") int pageNum,  // 当前页码，默认是第1页
             @RequestParam(defaultValue = "10") int pageSize,  // 每页显示数量，默认是10条
-            Model model) {
+            Model model,
+            HttpServletRequest request) throws Exception {
+        
+        String cacheKey = pageCache.key("search", lastName, level, isActive, pageNum, pageSize);
+        View cached = pageCache.get(cacheKey, request);
+        if (cached != null) {
+            return cached;
+        }
         
         // 创建一个查询条件对象
         Employee condition = new Employee();
@@ -124,23 +157,90 @@ public class EmployeeViewController {
         model.addAttribute("totalCount", totalCount);  // 总记录数
         model.addAttribute("totalPages", totalPages);  // 总页数
         
-        return "employee/list";  // 返回要显示的页面名称
+        return pageCache.render(cacheKey, "employee/list", request);
+    }
+
+    /**
+     * 游标翻页浏览员工
+     * 和搜索一样可以按条件过滤，但是用游标代替页码，翻到很后面的页也不会变慢
+     * 这种方式不显示总页数，只能一页一页地向前或向后翻
+     * 
+     * @param cursor 翻页游标，为空时显示第一页
+     * @param lastName 姓氏，可以为空
+     * @param level 级别，可以为空
+     * @param isActive 是否在职，可以为空
+     * @param pageSize 每页显示数量
+     * @param model 用于向页面传递数据的对象
+     * @param request 当前请求，用于查找缓存的页面
+     * @return 返回要显示的页面
+     */
+    @GetMapping("/scroll")  // 处理GET请求，当访问/employees/scroll时调用此方法
+    public View scrollEmployees(
+            @RequestParam(required = false) String cursor,  // 翻页游标，不是必须的
+            @RequestParam(required = false) String lastName,
+            @RequestParam(required = false) Byte level,
+            @RequestParam(required = false) Boolean isActive,
+            @RequestParam(defaultValue = "10") int pageSize,
+            Model model,
+            HttpServletRequest request) throws Exception {
+
+        // 每页数量不对时重新从第一页开始也没有用，直接返回400
+        if (pageSize < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "每页数量必须大于0");
+        }
+        String cacheKey = pageCache.key("scroll", cursor, lastName, level, isActive, pageSize);
+        View cached = pageCache.get(cacheKey, request);
+        if (cached != null) {
+            return cached;
+        }
+
+        // 创建查询条件，空字符串的姓氏不作为条件
+        Employee condition = new Employee();
+        if (lastName != null && !lastName.isEmpty()) {
+            condition.setLastName(lastName);
+        }
+        condition.setLevel(level);
+        condition.setIsActive(isActive);
+
+        CursorPage<Employee> page;
+        try {
+            page = employeeService.getEmployeesByCursor(condition, cursor, pageSize);
+        } catch (IllegalArgumentException e) {
+            // 游标被篡改或者已经失效，从第一页重新开始
+            page = employeeService.getEmployeesByCursor(condition, null, pageSize);
+        }
+
+        // 将数据添加到model中
+        model.addAttribute("cursorMode", true);  // 告诉页面使用游标翻页
+        model.addAttribute("employees", page.getItems());  // 员工列表
+        model.addAttribute("nextCursor", page.getNextCursor());  // 下一页的游标
+        model.addAttribute("prevCursor", page.getPrevCursor());  // 上一页的游标
+        model.addAttribute("lastName", lastName);
+        model.addAttribute("level", level);
+        model.addAttribute("isActive", isActive);
+        model.addAttribute("pageSize", pageSize);
+
+        return pageCache.render(cacheKey, "employee/list", request);
     }
 
     /**
      * 同步员工数据
      * 这个方法是当用户点击"同步数据"按钮时会被调用
-     * 会从JSON文件中读取最新的员工数据并更新到数据库中
+     * 同步会作为后台任务提交，页面不用等待同步完成
      * 
-     * @param model 用于向页面传递数据的对象
+     * @param redirectAttributes 用于在重定向后的页面上显示提交结果
      * @return 重定向到员工列表页面
      */
     @GetMapping("/sync")  // 处理GET请求，当访问/employees/sync时调用此方法
-    public String syncEmployees(Model model) {
-        // 调用服务层方法同步数据
-        boolean success = employeeService.syncEmployee();
-        // 将同步结果添加到model中
-        model.addAttribute("syncSuccess", success);
+    public String syncEmployees(RedirectAttributes redirectAttributes) {
+        try {
+            // 提交后台同步任务，立即返回
+            SyncJobStatus status = syncJobService.submit(true, false);
+            redirectAttributes.addFlashAttribute("syncJobId", status.getJobId());
+        } catch (TaskRejectedException e) {
+            // 排队的任务已满
+            redirectAttributes.addFlashAttribute("syncSuccess", false);
+        }
         // 重定向到员工列表页面
         return "redirect:/employees";
     }
@@ -0,0 +1,76 @@
+package com.example.learning.controller;
+
+import com.example.learning.model.QueryShape;
+import com.example.learning.model.QueryShapeAdvice;
+import com.example.learning.model.SlowQuery;
+import com.example.learning.model.SqlStatementStatistics;
+import com.example.learning.service.SqlStatisticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * SQL执行统计接口
+ * 查看哪些Mapper语句耗时最多、耗时最长的慢查询，以及动态SQL的条件组合和索引建议
+ */
+@RestController
+@RequestMapping("/api/admin/sql")
+public class SqlStatisticsController {
+
+    @Autowired
+    private SqlStatisticsService sqlStatisticsService;
+
+    /**
+     * 耗时最多的语句
+     * 例如 /api/admin/sql/statements?sort=p99&limit=10
+     */
+    @GetMapping("/statements")
+    public ResponseEntity<List<SqlStatementStatistics>> getTopStatements(
+            @RequestParam(defaultValue = "total") String sort,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(sqlStatisticsService.getTopStatements(sort, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * 最近一段时间之内耗时最长的慢查询，包括执行失败的查询
+     */
+    @GetMapping("/slow")
+    public ResponseEntity<List<SlowQuery>> getSlowQueries() {
+        return ResponseEntity.ok(sqlStatisticsService.getSlowQueries());
+    }
+
+    /**
+     * 动态SQL实际执行过的条件组合，按累计耗时排列
+     * 例如 /api/admin/sql/shapes?limit=20
+     */
+    @GetMapping("/shapes")
+    public ResponseEntity<List<QueryShape>> getQueryShapes(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(sqlStatisticsService.getQueryShapes(limit));
+    }
+
+    /**
+     * 条件组合的执行计划分析和索引建议
+     * 例如 /api/admin/sql/shapes/advice?limit=10
+     */
+    @GetMapping("/shapes/advice")
+    public ResponseEntity<List<QueryShapeAdvice>> adviseIndexes(
+            @RequestParam(defaultValue = "10") int limit) throws SQLException {
+        return ResponseEntity.ok(sqlStatisticsService.adviseIndexes(limit));
+    }
+
+    /**
+     * 清空统计数据
+     */
+    @DeleteMapping
+    public ResponseEntity<Void> reset() {
+        sqlStatisticsService.reset();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.learning.controller;
+
+import com.example.learning.model.SyncJobStatus;
+import com.example.learning.service.SyncJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 同步任务接口
+ * 提交同步后立即返回任务ID，之后通过任务ID查询进度或取消任务
+ * 任务开始执行时如果已有其他同步（比如 /api/employees/sync）正在执行，任务不会执行，状态为 REJECTED
+ */
+@RestController
+@RequestMapping("/api/employees/sync/jobs")
+public class SyncJobController {
+
+    @Autowired
+    private SyncJobService syncJobService;
+
+    @PostMapping
+    public ResponseEntity<SyncJobStatus> submitJob(
+            @RequestParam(defaultValue = "true") boolean incremental,
+            @RequestParam(defaultValue = "false") boolean deleteMissing) {
+        try {
+            SyncJobStatus status = syncJobService.submit(incremental, deleteMissing);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header("Location", "/api/employees/sync/jobs/" + status.getJobId())
+                .body(status);
+        } catch (TaskRejectedException e) {
+            // 排队的任务已满，让调用方稍后重试
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<SyncJobStatus> getJobStatus(@PathVariable String jobId) {
+        SyncJobStatus status = syncJobService.getStatus(jobId);
+        return status != null ? ResponseEntity.ok(status) : ResponseEntity.notFound().build();
+    }
+
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<SyncJobStatus> cancelJob(@PathVariable String jobId) {
+        SyncJobStatus status = syncJobService.cancel(jobId);
+        return status != null ? ResponseEntity.ok(status) : ResponseEntity.notFound().build();
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.learning.datasource;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 读己之写：把刚写过数据的调用方固定到主库
+ * 从库的数据有复制延迟，刚提交的修改在从库上可能还查不到，
+ * 所以一次请求写过数据之后，这次请求剩下的查询和之后一段时间内同一调用方的请求都使用主库
+ *
+ * 状态保存在当前线程上，由 ReadYourWritesFilter 在请求开始时设置、结束时清除；
+ * 请求之外的线程（比如同步任务）没有状态，只按事务是否只读路由，
+ * 把请求的工作交给其他线程执行时，需要用 propagate 把状态带过去
+ */
+public final class PrimaryPinning {
+
+    private static final ThreadLocal<Context> CONTEXT = new ThreadLocal<>();
+
+    private PrimaryPinning() {
+    }
+
+    /**
+     * 开始一次请求
+     *
+     * @param pinned 调用方是否还在读己之写的时间窗口内
+     * @param onFirstWrite 这次请求第一次写数据时调用，用来通知调用方之后继续使用主库
+     */
+    public static void begin(boolean pinned, Runnable onFirstWrite) {
+        Context context = new Context();
+        context.pinned = pinned;
+        context.onFirstWrite = onFirstWrite;
+        CONTEXT.set(context);
+    }
+
+    /**
+     * 结束当前请求
+     */
+    public static void end() {
+        CONTEXT.remove();
+    }
+
+    /**
+     * 让任务在其他线程上执行时使用当前请求的状态
+     * 任务中写过数据，之后的请求同样会固定使用主库
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        Context context = CONTEXT.get();
+        if (context == null) {
+            return task;
+        }
+        return () -> {
+            Context previous = CONTEXT.get();
+            CONTEXT.set(context);
+            try {
+                return task.call();
+            } finally {
+                if (previous != null) {
+                    CONTEXT.set(previous);
+                } else {
+                    CONTEXT.remove();
+                }
+            }
+        };
+    }
+
+    /**
+     * 当前线程是否固定使用主库
+     */
+    public static boolean isPinned() {
+        Context context = CONTEXT.get();
+        return context != null && context.pinned;
+    }
+
+    /**
+     * 这次请求剩下的查询都使用主库
+     * 查询结果要放进缓存时使用，避免把从库上延迟的旧数据缓存下来
+     */
+    public static void pin() {
+        Context context = CONTEXT.get();
+        if (context != null) {
+            context.pinned = true;
+        }
+    }
+
+    /**
+     * 记录当前线程在主库上开启了读写事务
+     */
+    static void recordWrite() {
+        Context context = CONTEXT.get();
+        if (context == null || context.written) {
+            return;
+        }
+        context.written = true;
+        context.pinned = true;
+        if (context.onFirstWrite != null) {
+            context.onFirstWrite.run();
+        }
+    }
+
+    private static final class Context {
+
+        private boolean pinned;
+
+        private boolean written;
+
+        private Runnable onFirstWrite;
+    }
+}
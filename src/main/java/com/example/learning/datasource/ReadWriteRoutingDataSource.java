@@ -0,0 +1,104 @@
+package com.example.learning.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 读写分离的数据源
+ * 只读事务（@Transactional(readOnly = true)）使用从库，其他情况都使用主库：
+ * 读写事务、读写事务中的查询、没有事务的语句，以及读己之写时间窗口内的调用方
+ *
+ * 路由在获取物理连接时决定，必须包在 LazyConnectionDataSourceProxy 里使用，
+ * 这样事务开始时拿到的是延迟连接，执行第一条语句时事务的只读标记已经设置好了
+ *
+ * 从库由这个数据源创建和关闭，主库是单独的Bean
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    public static final String PRIMARY = "primary";
+
+    private final List<String> replicaKeys = new ArrayList<>();
+
+    private final List<DataSource> replicas = new ArrayList<>();
+
+    private final ReplicaSelection selection;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<? extends DataSource> replicas,
+                                      ReplicaSelection selection) {
+        this.selection = selection;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            String key = "replica-" + (i + 1);
+            replicaKeys.add(key);
+            this.replicas.add(replicas.get(i));
+            targets.put(key, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        // 找不到路由键时不要悄悄退回主库
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        if (!readOnly && TransactionSynchronizationManager.isActualTransactionActive()) {
+            PrimaryPinning.recordWrite();
+        }
+        if (!readOnly || replicaKeys.isEmpty() || PrimaryPinning.isPinned()) {
+            return PRIMARY;
+        }
+        return replicaKeys.get(selectReplica());
+    }
+
+    private int selectReplica() {
+        int size = replicaKeys.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        if (selection != ReplicaSelection.LEAST_LOADED || size == 1) {
+            return start;
+        }
+        // 从轮询位置开始找活动连接最少的从库，连接数相同时保持轮询的顺序
+        int best = start;
+        int bestActive = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % size;
+            int active = activeConnections(replicas.get(index));
+            if (active < bestActive) {
+                best = index;
+                bestActive = active;
+            }
+        }
+        return best;
+    }
+
+    private static int activeConnections(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource) {
+            HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+            // 连接池在第一次获取连接时才会启动
+            return pool == null ? 0 : pool.getActiveConnections();
+        }
+        return 0;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (DataSource replica : replicas) {
+            if (replica instanceof AutoCloseable) {
+                ((AutoCloseable) replica).close();
+            }
+        }
+    }
+}
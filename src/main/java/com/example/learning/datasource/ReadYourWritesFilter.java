@@ -0,0 +1,64 @@
+package com.example.learning.datasource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 读己之写过滤器
+ * 请求写过数据后，给调用方设置一个记录截止时间的cookie，截止时间之前的请求都固定使用主库，
+ * 这样页面在修改之后立即刷新，也不会因为从库延迟看到旧数据
+ */
+@Component
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE_NAME = "primary-pin";
+
+    @Autowired
+    private RoutingDataSourceProperties properties;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long window = properties.getReadYourWritesMs();
+        PrimaryPinning.begin(pinnedUntil(request) > System.currentTimeMillis(), () -> {
+            // 写数据发生在处理请求的过程中，这时候响应还没有提交，可以添加cookie
+            if (window > 0 && !response.isCommitted()) {
+                Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(System.currentTimeMillis() + window));
+                cookie.setPath("/");
+                cookie.setHttpOnly(true);
+                cookie.setMaxAge((int) Math.max(1, (window + 999) / 1000));
+                response.addCookie(cookie);
+            }
+        });
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            PrimaryPinning.end();
+        }
+    }
+
+    private static long pinnedUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.learning.datasource;
+
+/**
+ * 只读请求选择从库的方式
+ */
+public enum ReplicaSelection {
+    /**
+     * 依次轮流使用每个从库
+     */
+    ROUND_ROBIN,
+
+    /**
+     * 使用当前活动连接最少的从库，连接数相同时轮流使用
+     */
+    LEAST_LOADED
+}
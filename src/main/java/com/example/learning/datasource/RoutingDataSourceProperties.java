@@ -0,0 +1,57 @@
+package com.example.learning.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读写分离配置，主库仍然使用 spring.datasource.* 的配置
+ */
+@Data
+@ConfigurationProperties(prefix = "employee.datasource")
+public class RoutingDataSourceProperties {
+
+    /**
+     * 从库列表，为空时所有请求都使用主库
+     */
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * 选择从库的方式
+     */
+    private ReplicaSelection selection = ReplicaSelection.ROUND_ROBIN;
+
+    /**
+     * 读己之写的时间窗口（毫秒）：调用方写过数据后，这段时间内的请求都使用主库
+     * 应该大于从库通常的复制延迟，0表示只在写数据的那次请求内使用主库
+     */
+    private long readYourWritesMs = 3000;
+
+    @Data
+    public static class Replica {
+
+        private String url;
+
+        /**
+         * 没有配置时使用主库的用户名
+         */
+        private String username;
+
+        /**
+         * 没有配置时使用主库的密码
+         */
+        private String password;
+
+        /**
+         * 没有配置时使用主库的驱动
+         */
+        private String driverClassName;
+
+        /**
+         * 没有配置时和主库的连接池大小相同
+         */
+        private Integer maximumPoolSize;
+    }
+}
@@ -1,14 +1,22 @@
 package com.example.learning.entity;
 
+import com.example.learning.projection.EmployeeField;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
 
 /**
  * 员工实体类
  * 这个类用来表示一个员工的所有信息
  * 比如：姓名、工资、生日等
+ * 序列化时按 EmployeeField.FILTER_ID 过滤属性，默认输出全部属性
  */
+@JsonFilter(EmployeeField.FILTER_ID)
 public class Employee {
     /**
      * 员工ID
@@ -70,6 +78,13 @@ public class Employee {
      */
     private LocalDateTime updatedAt;
 
+    /**
+     * 记录内容的摘要（MD5）
+     * 增量同步时用它判断数据源中的记录是否有变化，没变化的记录不需要重写
+     */
+    @JsonIgnore
+    private String contentHash;
+
     /**
      * 分页查询时的起始位置
      * 比如：第2页，每页10条，offset就是10
@@ -82,6 +97,38 @@ public class Employee {
      */
     private Integer limit;
 
+    /**
+     * 游标分页时的起点：只查询ID大于这个值的员工
+     * 比如：上一页最后一个员工的ID是100，下一页就从101开始
+     */
+    private Integer afterId;
+
+    /**
+     * 游标分页向前翻页时的终点：只查询ID小于这个值的员工
+     */
+    private Integer beforeId;
+
+    /**
+     * 只在这些员工ID中查询
+     * 按姓氏子串搜索时，由名字索引先找出可能匹配的员工，SQL在这些主键中再按姓氏过滤，代替 LIKE '%..%' 全表扫描
+     */
+    @JsonIgnore
+    private List<Integer> userIds;
+
+    /**
+     * 姓氏是否只按前缀匹配
+     * 前缀匹配生成 LIKE '张%'，可以使用姓氏上的索引
+     */
+    @JsonIgnore
+    private Boolean lastNamePrefix;
+
+    /**
+     * 只查询这些字段对应的列，为空时查询全部列
+     * 主键总是会查询，游标分页需要用它生成游标
+     */
+    @JsonIgnore
+    private Set<EmployeeField> fields;
+
     // 以下是所有字段的getter和setter方法
     // getter方法用于获取字段的值
     // setter方法用于设置字段的值
@@ -166,6 +213,14 @@ public class Employee {
         this.updatedAt = updatedAt;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
     public Integer getOffset() {
         return offset;
     }
@@ -181,4 +236,44 @@ public class Employee {
     public void setLimit(Integer limit) {
         this.limit = limit;
     }
+
+    public Integer getAfterId() {
+        return afterId;
+    }
+
+    public void setAfterId(Integer afterId) {
+        this.afterId = afterId;
+    }
+
+    public Integer getBeforeId() {
+        return beforeId;
+    }
+
+    public void setBeforeId(Integer beforeId) {
+        this.beforeId = beforeId;
+    }
+
+    public List<Integer> getUserIds() {
+        return userIds;
+    }
+
+    public void setUserIds(List<Integer> userIds) {
+        this.userIds = userIds;
+    }
+
+    public Boolean getLastNamePrefix() {
+        return lastNamePrefix;
+    }
+
+    public void setLastNamePrefix(Boolean lastNamePrefix) {
+        this.lastNamePrefix = lastNamePrefix;
+    }
+
+    public Set<EmployeeField> getFields() {
+        return fields;
+    }
+
+    public void setFields(Set<EmployeeField> fields) {
+        this.fields = fields;
+    }
 }
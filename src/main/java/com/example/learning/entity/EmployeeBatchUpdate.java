@@ -0,0 +1,21 @@
+package com.example.learning.entity;
+
+/**
+ * 按条件批量修改的参数
+ * 继承的字段是过滤条件，和列表查询使用同一组条件（Condition_Filters），
+ * changes 中不为空的字段是要设置的新值
+ */
+public class EmployeeBatchUpdate extends Employee {
+    /**
+     * 要设置的新值，只更新其中不为空的字段；删除时为null
+     */
+    private Employee changes;
+
+    public Employee getChanges() {
+        return changes;
+    }
+
+    public void setChanges(Employee changes) {
+        this.changes = changes;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.learning.entity;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 同步运行记录
+ * 每次同步对应一条记录，用来在中断后找到上一次没有完成的同步并从断点继续
+ */
+@Data
+public class SyncRun {
+    /**
+     * 运行ID
+     */
+    private Long runId;
+
+    /**
+     * 数据源标识，包含数据源的位置、大小和修改时间
+     * 数据源变了就不能再从旧的断点继续
+     */
+    private String source;
+
+    /**
+     * 同步模式：FULL（全量插入）或 INCREMENTAL（增量写入）
+     */
+    private String mode;
+
+    /**
+     * 每个数据块包含的记录数，断点是按数据块序号记录的，块大小变了断点就失效了
+     */
+    private Integer chunkSize;
+
+    /**
+     * 运行状态：RUNNING、FAILED 或 COMPLETED
+     */
+    private String status;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+}
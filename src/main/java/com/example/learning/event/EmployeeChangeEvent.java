@@ -0,0 +1,119 @@
+package com.example.learning.event;
+
+import com.example.learning.entity.Employee;
+import org.springframework.core.Ordered;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * 员工数据变更事件
+ * 所有写入员工表的地方（增删改、同步、清空）都会发布这个事件，
+ * 依赖员工数据的计数、缓存等在事务提交后根据事件更新自己
+ *
+ * 监听器的顺序：计数、实体缓存、搜索索引等派生数据先更新（DERIVED_DATA_ORDER），
+ * 数据版本号和页面缓存最后处理（VERSION_ORDER）；版本号一旦改变，新渲染的页面就会用新版本缓存下来，
+ * 如果这时派生数据还没有更新，旧的记录数或搜索结果会一直留在新版本的缓存中
+ * 新增维护派生数据的监听器时需要加上 @Order(DERIVED_DATA_ORDER)
+ */
+public class EmployeeChangeEvent {
+
+    /**
+     * 维护派生数据（计数、缓存、索引、快照）的监听器的顺序
+     */
+    public static final int DERIVED_DATA_ORDER = 0;
+
+    /**
+     * 数据版本号和依赖版本号的页面缓存的顺序，在所有派生数据更新之后执行
+     */
+    public static final int VERSION_ORDER = Ordered.LOWEST_PRECEDENCE;
+
+    /**
+     * 变更类型
+     */
+    public enum Type {
+        /**
+         * 新增一条记录，after是新增的记录
+         */
+        INSERT,
+        /**
+         * 修改一条记录，before和after分别是修改前后的记录
+         */
+        UPDATE,
+        /**
+         * 删除一条记录，before是删除前的记录
+         */
+        DELETE,
+        /**
+         * 批量变更（同步等），只知道哪些ID受到了影响，不知道修改前后的内容
+         */
+        BULK,
+        /**
+         * 清空整张表
+         */
+        TRUNCATE
+    }
+
+    private final Type type;
+
+    private final Employee before;
+
+    private final Employee after;
+
+    private final Collection<Integer> userIds;
+
+    private EmployeeChangeEvent(Type type, Employee before, Employee after, Collection<Integer> userIds) {
+        this.type = type;
+        this.before = before;
+        this.after = after;
+        this.userIds = userIds;
+    }
+
+    public static EmployeeChangeEvent inserted(Employee after) {
+        return new EmployeeChangeEvent(Type.INSERT, null, after,
+            Collections.singletonList(after.getUserId()));
+    }
+
+    public static EmployeeChangeEvent updated(Employee before, Employee after) {
+        return new EmployeeChangeEvent(Type.UPDATE, before, after,
+            Collections.singletonList(after.getUserId()));
+    }
+
+    public static EmployeeChangeEvent deleted(Employee before) {
+        return new EmployeeChangeEvent(Type.DELETE, before, null,
+            Collections.singletonList(before.getUserId()));
+    }
+
+    public static EmployeeChangeEvent bulk(Collection<Integer> userIds) {
+        return new EmployeeChangeEvent(Type.BULK, null, null, Collections.unmodifiableCollection(userIds));
+    }
+
+    public static EmployeeChangeEvent truncated() {
+        return new EmployeeChangeEvent(Type.TRUNCATE, null, null, Collections.<Integer>emptyList());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * 修改或删除之前的记录，新增、批量变更和清空时为null
+     */
+    public Employee getBefore() {
+        return before;
+    }
+
+    /**
+     * 新增或修改之后的记录，删除、批量变更和清空时为null
+     */
+    public Employee getAfter() {
+        return after;
+    }
+
+    /**
+     * 受影响的员工ID，清空整张表时为空
+     */
+    public Collection<Integer> getUserIds() {
+        return userIds;
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.learning.export;
+
+import com.example.learning.entity.Employee;
+import com.example.learning.mapper.EmployeeMapper;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 员工数据导出
+ * 通过MyBatis游标一边从数据库读取一边写入输出流，任何时候内存中只有一批记录，
+ * 导出的数据量再大也不会占满内存，客户端也能立即收到第一批数据
+ */
+@Component
+public class EmployeeExporter {
+
+    private static final String CSV_HEADER =
+        "user_id,first_name,last_name,salary,currency,birthdate,is_active,level,created_at,updated_at";
+
+    @Autowired
+    private EmployeeMapper employeeMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * 游标必须在同一个连接上遍历，所以整个导出在一个只读事务中执行
+     */
+    private TransactionTemplate readOnlyTransaction;
+
+    /**
+     * 每条记录写完后不要立即flush，交给输出流的缓冲区按块发送
+     */
+    private ObjectWriter employeeWriter;
+
+    @PostConstruct
+    public void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        employeeWriter = objectMapper.writerFor(Employee.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * 导出符合条件的员工
+     * 
+     * @param condition 查询条件，和搜索使用相同的条件
+     * @param format 导出格式
+     * @param out 输出流，导出完成后不会关闭
+     * @throws IOException 写入输出流失败（比如客户端断开连接）时抛出
+     */
+    public void export(Employee condition, ExportFormat format, OutputStream out) throws IOException {
+        try {
+            readOnlyTransaction.execute(status -> {
+                try (Cursor<Employee> cursor = employeeMapper.selectForExport(condition)) {
+                    if (format == ExportFormat.CSV) {
+                        writeCsv(cursor, out);
+                    } else {
+                        writeJson(cursor, format == ExportFormat.JSON, out);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void writeJson(Cursor<Employee> cursor, boolean array, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        if (array) {
+            generator.writeStartArray();
+        }
+        for (Employee employee : cursor) {
+            employeeWriter.writeValue(generator, employee);
+            if (!array) {
+                generator.writeRaw('\n');
+            }
+        }
+        if (array) {
+            generator.writeEndArray();
+        }
+        generator.close();
+    }
+
+    private void writeCsv(Cursor<Employee> cursor, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        for (Employee employee : cursor) {
+            writer.write(String.valueOf(employee.getUserId()));
+            writer.write(',');
+            writeCsvField(writer, employee.getFirstName());
+            writer.write(',');
+            writeCsvField(writer, employee.getLastName());
+            writer.write(',');
+            writeCsvField(writer, employee.getSalary() == null ? null : employee.getSalary().toPlainString());
+            writer.write(',');
+            writeCsvField(writer, employee.getCurrency());
+            writer.write(',');
+            writeCsvField(writer, employee.getBirthdate() == null ? null : employee.getBirthdate().toString());
+            writer.write(',');
+            writeCsvField(writer, employee.getIsActive() == null ? null : employee.getIsActive().toString());
+            writer.write(',');
+            writeCsvField(writer, employee.getLevel() == null ? null : employee.getLevel().toString());
+            writer.write(',');
+            writeCsvField(writer, employee.getCreatedAt() == null ? null : employee.getCreatedAt().toString());
+            writer.write(',');
+            writeCsvField(writer, employee.getUpdatedAt() == null ? null : employee.getUpdatedAt().toString());
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    /**
+     * 写入一个CSV字段，包含逗号、引号或换行时用双引号括起来（RFC 4180）
+     */
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
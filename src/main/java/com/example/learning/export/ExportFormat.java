@@ -0,0 +1,50 @@
+package com.example.learning.export;
+
+/**
+ * 导出格式
+ */
+public enum ExportFormat {
+    /**
+     * 每行一个JSON对象（NDJSON / JSON Lines）
+     */
+    NDJSON("application/x-ndjson", "ndjson"),
+    /**
+     * 逗号分隔，第一行是列名
+     */
+    CSV("text/csv;charset=UTF-8", "csv"),
+    /**
+     * 一个JSON数组
+     */
+    JSON("application/json", "json");
+
+    private final String contentType;
+
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * 根据请求参数解析导出格式，不区分大小写
+     * 
+     * @throws IllegalArgumentException 不支持的格式
+     */
+    public static ExportFormat of(String name) {
+        for (ExportFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("不支持的导出格式: " + name);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.learning.format;
+
+import com.example.learning.entity.Employee;
+import com.example.learning.model.CursorPage;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 员工列表的Avro格式
+ * 请求头 Accept: application/avro 时，列表接口返回Avro容器文件，
+ * 游标翻页接口的 nextCursor、prevCursor、pageSize 写在文件头的元数据中
+ * 只支持输出，不支持读取
+ */
+public class EmployeeAvroHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType APPLICATION_AVRO = new MediaType("application", "avro");
+
+    private static final String SCHEMA_LOCATION = "avro/employee.avsc";
+
+    private final EmployeeAvroWriter writer;
+
+    public EmployeeAvroHttpMessageConverter() {
+        super(APPLICATION_AVRO);
+        try (InputStream in = new ClassPathResource(SCHEMA_LOCATION).getInputStream()) {
+            writer = new EmployeeAvroWriter(StreamUtils.copyToString(in, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法读取Avro schema: " + SCHEMA_LOCATION, e);
+        }
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz) || CursorPage.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    /**
+     * 只有元素类型是Employee时才能写，需要根据泛型判断，比如 List&lt;Employee&gt;
+     */
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (type == null || !canWrite(mediaType)) {
+            return false;
+        }
+        ResolvableType resolved = ResolvableType.forType(type);
+        Class<?> raw = resolved.resolve(clazz);
+        if (raw != null && List.class.isAssignableFrom(raw)) {
+            return resolved.asCollection().resolveGeneric(0) == Employee.class;
+        }
+        if (raw != null && CursorPage.class.isAssignableFrom(raw)) {
+            return resolved.as(CursorPage.class).resolveGeneric(0) == Employee.class;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        // 没有泛型信息时无法确定元素类型
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        if (body instanceof CursorPage) {
+            CursorPage<Employee> page = (CursorPage<Employee>) body;
+            Map<String, String> metadata = new LinkedHashMap<>();
+            metadata.put("employee.pageSize", Integer.toString(page.getPageSize()));
+            if (page.getNextCursor() != null) {
+                metadata.put("employee.nextCursor", page.getNextCursor());
+            }
+            if (page.getPrevCursor() != null) {
+                metadata.put("employee.prevCursor", page.getPrevCursor());
+            }
+            writer.write(page.getItems(), metadata, outputMessage.getBody());
+        } else {
+            writer.write((List<Employee>) body, Collections.emptyMap(), outputMessage.getBody());
+        }
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("不支持读取Avro格式", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("不支持读取Avro格式", inputMessage);
+    }
+}
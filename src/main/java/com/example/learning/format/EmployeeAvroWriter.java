@@ -0,0 +1,208 @@
+package com.example.learning.format;
+
+import com.example.learning.entity.Employee;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 把员工列表写成Avro容器文件（Object Container File）
+ * 文件头中带有 avro/employee.avsc 的schema，任何Avro库或工具（比如 avro-tools tojson）都可以直接读取
+ *
+ * 数据只有这一种固定的结构，编码规则也很简单（变长整数、带长度的字符串），
+ * 所以直接按Avro规范编码，不引入Avro库
+ */
+public class EmployeeAvroWriter {
+
+    private static final byte[] MAGIC = {'O', 'b', 'j', 1};
+
+    /**
+     * 每个数据块的记录数，数据块之间用同步标记分隔
+     */
+    private static final int BLOCK_SIZE = 1000;
+
+    private static final int SYNC_SIZE = 16;
+
+    private final byte[] schema;
+
+    public EmployeeAvroWriter(String schema) {
+        this.schema = schema.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 写入员工列表
+     * 
+     * @param employees 员工列表
+     * @param metadata 额外写入文件头的元数据，比如翻页游标
+     * @param out 输出流，写完后不会关闭
+     */
+    public void write(List<Employee> employees, Map<String, String> metadata, OutputStream out) throws IOException {
+        byte[] sync = new byte[SYNC_SIZE];
+        ThreadLocalRandom.current().nextBytes(sync);
+
+        Encoder header = new Encoder(256 + schema.length);
+        header.writeRaw(MAGIC, MAGIC.length);
+        header.writeLong(metadata.size() + 2);
+        header.writeString("avro.schema");
+        header.writeBytes(schema, schema.length);
+        header.writeString("avro.codec");
+        header.writeString("null");
+        for (Map.Entry<String, String> entry : metadata.entrySet()) {
+            header.writeString(entry.getKey());
+            header.writeString(entry.getValue());
+        }
+        header.writeLong(0);
+        header.writeRaw(sync, SYNC_SIZE);
+        header.writeTo(out);
+
+        Encoder block = new Encoder(64 * BLOCK_SIZE);
+        Encoder blockHeader = new Encoder(20);
+        for (int from = 0; from < employees.size(); from += BLOCK_SIZE) {
+            int to = Math.min(from + BLOCK_SIZE, employees.size());
+            block.reset();
+            for (int i = from; i < to; i++) {
+                writeEmployee(block, employees.get(i));
+            }
+            blockHeader.reset();
+            blockHeader.writeLong(to - from);
+            blockHeader.writeLong(block.size());
+            blockHeader.writeTo(out);
+            block.writeTo(out);
+            out.write(sync);
+        }
+    }
+
+    /**
+     * 按 employee.avsc 中字段的顺序编码，可以为空的字段先写union的分支（0为null，1为值）
+     */
+    private static void writeEmployee(Encoder encoder, Employee employee) {
+        encoder.writeLong(employee.getUserId());
+        writeNullableString(encoder, employee.getFirstName());
+        writeNullableString(encoder, employee.getLastName());
+        BigDecimal salary = employee.getSalary();
+        if (salary == null) {
+            encoder.writeLong(0);
+        } else {
+            encoder.writeLong(1);
+            byte[] unscaled = salary.setScale(2, RoundingMode.HALF_UP).unscaledValue().toByteArray();
+            encoder.writeBytes(unscaled, unscaled.length);
+        }
+        writeNullableString(encoder, employee.getCurrency());
+        if (employee.getBirthdate() == null) {
+            encoder.writeLong(0);
+        } else {
+            encoder.writeLong(1);
+            encoder.writeLong(employee.getBirthdate().toEpochDay());
+        }
+        if (employee.getIsActive() == null) {
+            encoder.writeLong(0);
+        } else {
+            encoder.writeLong(1);
+            encoder.writeBoolean(employee.getIsActive());
+        }
+        if (employee.getLevel() == null) {
+            encoder.writeLong(0);
+        } else {
+            encoder.writeLong(1);
+            encoder.writeLong(employee.getLevel());
+        }
+        writeNullableTimestamp(encoder, employee.getCreatedAt());
+        writeNullableTimestamp(encoder, employee.getUpdatedAt());
+    }
+
+    private static void writeNullableString(Encoder encoder, String value) {
+        if (value == null) {
+            encoder.writeLong(0);
+        } else {
+            encoder.writeLong(1);
+            encoder.writeString(value);
+        }
+    }
+
+    /**
+     * local-timestamp-millis 表示不带时区的本地时间，按UTC换算成毫秒数
+     */
+    private static void writeNullableTimestamp(Encoder encoder, LocalDateTime value) {
+        if (value == null) {
+            encoder.writeLong(0);
+        } else {
+            encoder.writeLong(1);
+            encoder.writeLong(value.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+    }
+
+    /**
+     * Avro二进制编码
+     */
+    private static final class Encoder {
+
+        private byte[] buffer;
+
+        private int size;
+
+        Encoder(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        /**
+         * int和long都编码为zigzag变长整数，绝对值小的数只占一个字节
+         */
+        void writeLong(long value) {
+            ensureCapacity(10);
+            long n = (value << 1) ^ (value >> 63);
+            while ((n & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((n & 0x7F) | 0x80);
+                n >>>= 7;
+            }
+            buffer[size++] = (byte) n;
+        }
+
+        void writeBoolean(boolean value) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) (value ? 1 : 0);
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeBytes(bytes, bytes.length);
+        }
+
+        void writeBytes(byte[] bytes, int length) {
+            writeLong(length);
+            writeRaw(bytes, length);
+        }
+
+        void writeRaw(byte[] bytes, int length) {
+            ensureCapacity(length);
+            System.arraycopy(bytes, 0, buffer, size, length);
+            size += length;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(buffer, 0, size);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+}
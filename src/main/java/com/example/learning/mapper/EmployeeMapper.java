@@ -1,8 +1,11 @@
 package com.example.learning.mapper;
 
 import com.example.learning.entity.Employee;
+import com.example.learning.entity.EmployeeBatchUpdate;
+import com.example.learning.model.EmployeeCountBucket;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 import java.util.List;
 
 /**
@@ -29,6 +32,49 @@ public interface EmployeeMapper {
      */
     List<Employee> selectAll();
     
+    /**
+     * 根据ID列表查询内容摘要
+     * 返回的员工对象中只有userId和contentHash两个字段有值
+     * 
+     * @param ids 员工ID列表，不能为空
+     * @return 返回数据库中已存在的员工的ID和内容摘要
+     */
+    List<Employee> selectHashesByIds(@Param("ids") List<Integer> ids);
+    
+    /**
+     * 根据ID列表查询并锁定员工，锁在事务结束时释放
+     * 
+     * @param ids 员工ID列表，不能为空
+     * @return 返回数据库中已存在的员工
+     */
+    List<Employee> selectByIdsForUpdate(@Param("ids") List<Integer> ids);
+    
+    /**
+     * 按主键顺序分批查询员工ID
+     * 
+     * @param afterId 从这个ID之后开始查询，为null时从头开始
+     * @param limit 最多返回多少个ID
+     * @return 返回按从小到大排序的员工ID列表
+     */
+    List<Integer> selectIdsAfter(@Param("afterId") Integer afterId, @Param("limit") int limit);
+    
+    /**
+     * 按主键顺序分批查询员工姓名
+     * 
+     * @param afterId 从这个ID之后开始查询，为null时从头开始
+     * @param limit 最多返回的记录数
+     * @return 返回只包含ID、名字和姓氏的员工列表
+     */
+    List<Employee> selectNamesAfter(@Param("afterId") Integer afterId, @Param("limit") int limit);
+    
+    /**
+     * 根据ID列表查询员工姓名
+     * 
+     * @param ids 员工ID列表，不能为空
+     * @return 返回只包含ID、名字和姓氏的员工列表
+     */
+    List<Employee> selectNamesByIds(@Param("ids") List<Integer> ids);
+    
     /**
      * 根据级别查询员工
      * 比如：查询所有级别为3的员工
@@ -56,6 +102,42 @@ public interface EmployeeMapper {
      */
     int insert(Employee employee);
     
+    /**
+     * 游标分页查询员工
+     * 按员工ID排序，从afterId之后（或beforeId之前）开始取limit条记录
+     * 
+     * @param employee 包含查询条件和游标位置的员工对象
+     * @return 返回符合条件的员工列表，使用beforeId时按ID倒序
+     */
+    List<Employee> selectByCursor(Employee employee);
+    
+    /**
+     * 流式查询符合条件的员工，用于导出
+     * 返回的游标每次只从数据库取一小批记录，必须在事务（同一个连接）中遍历并关闭
+     * 
+     * @param employee 包含查询条件的员工对象
+     * @return 返回按员工ID排序的游标
+     */
+    Cursor<Employee> selectForExport(Employee employee);
+    
+    /**
+     * 批量新增员工
+     * 用一条多行INSERT语句把一批员工保存到数据库中
+     * 
+     * @param employees 要新增的员工列表，不能为空
+     * @return 返回影响的行数
+     */
+    int insertBatch(@Param("list") List<Employee> employees);
+    
+    /**
+     * 批量新增或更新员工
+     * 主键不存在时插入，已存在时覆盖原有数据
+     * 
+     * @param employees 要写入的员工列表，不能为空
+     * @return 返回影响的行数（MySQL中更新一行记为2，插入一行记为1）
+     */
+    int upsertBatch(@Param("list") List<Employee> employees);
+    
     /**
      * 更新员工信息
      * 修改数据库中已有的员工信息
@@ -65,6 +147,30 @@ public interface EmployeeMapper {
      */
     int update(Employee employee);
     
+    /**
+     * 查询并锁定符合条件的员工ID，必须在事务中执行
+     * 
+     * @param condition 过滤条件和主键范围
+     * @return 返回符合条件的员工ID
+     */
+    List<Integer> selectIdsByConditionForUpdate(EmployeeBatchUpdate condition);
+    
+    /**
+     * 按条件批量修改员工
+     * 
+     * @param update 过滤条件、主键范围和要设置的新值
+     * @return 返回影响的行数
+     */
+    int updateByCondition(EmployeeBatchUpdate update);
+    
+    /**
+     * 按条件批量删除员工
+     * 
+     * @param condition 过滤条件和主键范围
+     * @return 返回影响的行数
+     */
+    int deleteByCondition(EmployeeBatchUpdate condition);
+    
     /**
      * 删除员工
      * 根据ID删除指定的员工记录
@@ -74,6 +180,14 @@ public interface EmployeeMapper {
      */
     int deleteById(@Param("id") Integer userId);
 
+    /**
+     * 根据ID列表批量删除员工
+     * 
+     * @param ids 要删除的员工ID列表，不能为空
+     * @return 返回影响的行数
+     */
+    int deleteByIds(@Param("ids") List<Integer> ids);
+
     /**
      * 统计符合条件的员工数量
      * 用于分页时计算总记录数
@@ -83,6 +197,13 @@ public interface EmployeeMapper {
      */
     long countByCondition(Employee employee);
     
+    /**
+     * 按级别和在职状态分组统计员工数量
+     * 
+     * @return 返回每个级别、在职状态组合的员工数量，没有员工的组合不返回
+     */
+    List<EmployeeCountBucket> countGroupByLevelAndActive();
+    
     /**
      * 清空员工表
      * 删除表中的所有数据，但保留表结构
@@ -0,0 +1,52 @@
+package com.example.learning.mapper;
+
+import com.example.learning.entity.SyncRun;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 同步断点数据访问接口
+ * 记录每次同步的运行状态，以及每个已经提交的数据块
+ */
+@Mapper
+public interface SyncCheckpointMapper {
+    /**
+     * 查询可以继续执行的同步
+     * 数据源、模式、块大小都相同，并且还没有完成的最近一次同步
+     * 
+     * @return 返回找到的同步记录，没有则返回null
+     */
+    SyncRun selectUnfinishedRun(@Param("source") String source,
+                                @Param("mode") String mode,
+                                @Param("chunkSize") int chunkSize);
+
+    /**
+     * 新增一条同步记录，生成的ID会回填到runId字段
+     */
+    int insertRun(SyncRun run);
+
+    /**
+     * 更新同步状态，同时记录结束时间
+     */
+    int updateRunStatus(@Param("runId") long runId, @Param("status") String status);
+
+    /**
+     * 查询某次同步已经提交的数据块序号
+     */
+    List<Long> selectCommittedChunks(@Param("runId") long runId);
+
+    /**
+     * 记录一个已经提交的数据块
+     * 必须和数据块的写入在同一个事务中执行，这样断点和数据才能保持一致
+     */
+    int insertCheckpoint(@Param("runId") long runId,
+                         @Param("chunkSeq") long chunkSeq,
+                         @Param("recordCount") int recordCount);
+
+    /**
+     * 删除某次同步的所有断点，同步完成后断点就没有用了
+     */
+    int deleteCheckpoints(@Param("runId") long runId);
+}
@@ -0,0 +1,314 @@
+package com.example.learning.metrics;
+
+import com.example.learning.model.QueryShape;
+import com.example.learning.model.QueryShapeAdvice;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 索引建议
+ * 对 QueryShapes 记录的每种条件组合，用第一次执行时的参数运行EXPLAIN，
+ * 找出全表扫描、额外排序和临时表，并按WHERE条件推出合适的组合索引：
+ * 等值条件的列在前，范围条件（包括前缀匹配）的列在后，没有范围条件时再加上排序的列，
+ * 查询的其他列不多时一并放进索引，让查询只读索引就能完成
+ *
+ * 已有索引的前几列和建议的相同时不再建议；InnoDB的二级索引本身包含主键，建议中不包含主键列
+ * EXPLAIN只生成执行计划，不会执行查询；使用绑定参数，不把参数值拼进SQL
+ */
+@Component
+public class IndexAdvisor {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexAdvisor.class);
+
+    /**
+     * 查询的列不在建议的索引中时，最多再加几列让它成为覆盖索引
+     */
+    private static final int MAX_COVERING_COLUMNS = 2;
+
+    private static final String PRIMARY = "PRIMARY";
+
+    private static final Pattern SELECT_LIST = Pattern.compile("^SELECT (.+?) FROM ", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern TABLE = Pattern.compile("\\bFROM (\\w+)", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern WHERE = Pattern.compile(
+        "\\bWHERE (.+?)(?: GROUP BY | ORDER BY | LIMIT | FOR UPDATE|$)", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern ORDER_BY = Pattern.compile("\\bORDER BY (\\w+)", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern EQUALITY = Pattern.compile("\\b(\\w+) ?= ?\\?");
+
+    private static final Pattern RANGE = Pattern.compile("\\b(\\w+) ?[<>]=? ?\\?");
+
+    private static final Pattern PREFIX_LIKE = Pattern.compile(
+        "\\b(\\w+) LIKE CONCAT\\( ?\\? ?, ?'%' ?\\)", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern CONTAINS_LIKE = Pattern.compile(
+        "\\b(\\w+) LIKE CONCAT\\( ?'%'", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern SIMPLE_COLUMN = Pattern.compile("\\w+");
+
+    /**
+     * 默认的数据源，不在事务中时连接主库
+     */
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private QueryShapes queryShapes;
+
+    /**
+     * 分析条件组合
+     *
+     * @param shapes 要分析的条件组合
+     * @return 返回每种组合的执行计划和索引建议
+     * @throws SQLException 无法连接数据库时抛出，单个组合的EXPLAIN失败只记在它的说明中
+     */
+    public List<QueryShapeAdvice> advise(List<QueryShape> shapes) throws SQLException {
+        List<QueryShapeAdvice> result = new ArrayList<>(shapes.size());
+        Map<String, Map<String, List<String>>> indexes = new HashMap<>();
+        try (Connection connection = dataSource.getConnection()) {
+            for (QueryShape shape : shapes) {
+                QueryShapes.Sample sample = queryShapes.sampleOf(shape);
+                if (sample != null) {
+                    result.add(advise(connection, shape, sample, indexes));
+                }
+            }
+        }
+        return result;
+    }
+
+    private QueryShapeAdvice advise(Connection connection, QueryShape shape, QueryShapes.Sample sample,
+                                    Map<String, Map<String, List<String>>> indexes) {
+        QueryShapeAdvice advice = new QueryShapeAdvice();
+        advice.setQuery(shape);
+        List<String> notes = new ArrayList<>();
+        advice.setNotes(notes);
+
+        try {
+            List<Map<String, Object>> plan = explain(connection, sample);
+            advice.setPlan(plan);
+            analyzePlan(advice, plan, notes);
+        } catch (SQLException e) {
+            logger.warn("EXPLAIN失败: {}, {}", shape.getShape(), e.getMessage());
+            notes.add("EXPLAIN失败: " + e.getMessage());
+        }
+
+        Matcher table = TABLE.matcher(shape.getShape());
+        if (!table.find()) {
+            return advice;
+        }
+        Map<String, List<String>> tableIndexes;
+        try {
+            tableIndexes = indexes.get(table.group(1));
+            if (tableIndexes == null) {
+                tableIndexes = indexesOf(connection, table.group(1));
+                indexes.put(table.group(1), tableIndexes);
+            }
+        } catch (SQLException e) {
+            logger.warn("读取索引失败: {}, {}", table.group(1), e.getMessage());
+            notes.add("读取索引失败: " + e.getMessage());
+            return advice;
+        }
+        recommend(advice, table.group(1), tableIndexes, notes);
+        return advice;
+    }
+
+    private static List<Map<String, Object>> explain(Connection connection, QueryShapes.Sample sample)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sample.getSql())) {
+            List<Object> parameters = sample.getParameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return rowsOf(resultSet);
+            }
+        }
+    }
+
+    private static void analyzePlan(QueryShapeAdvice advice, List<Map<String, Object>> plan, List<String> notes) {
+        for (Map<String, Object> row : plan) {
+            String type = valueOf(row, "type");
+            String key = valueOf(row, "key");
+            String extra = valueOf(row, "Extra");
+            if (key != null && advice.getKey() == null) {
+                advice.setKey(key);
+            }
+            if ("ALL".equalsIgnoreCase(type)) {
+                advice.setFullScan(true);
+                notes.add("全表扫描（type=ALL），预计扫描 " + valueOf(row, "rows") + " 行");
+            } else if ("index".equalsIgnoreCase(type)) {
+                advice.setFullScan(true);
+                notes.add("扫描了整个索引 " + key + "（type=index）");
+            }
+            if (extra == null) {
+                continue;
+            }
+            for (String item : extra.split(";")) {
+                item = item.trim();
+                if ("Using filesort".equalsIgnoreCase(item)) {
+                    advice.setFilesort(true);
+                    notes.add("结果需要额外排序（Using filesort）");
+                } else if ("Using temporary".equalsIgnoreCase(item)) {
+                    notes.add("使用了临时表（Using temporary）");
+                } else if ("Using index".equalsIgnoreCase(item)) {
+                    advice.setCoveringIndex(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * 按WHERE条件和排序推出组合索引，已有索引可以满足时不建议
+     */
+    private static void recommend(QueryShapeAdvice advice, String table, Map<String, List<String>> indexes,
+                                  List<String> notes) {
+        String sql = advice.getQuery().getShape();
+        Set<String> primaryKey = new HashSet<>(indexes.getOrDefault(PRIMARY, new ArrayList<>()));
+
+        Matcher where = WHERE.matcher(sql);
+        String conditions = where.find() ? where.group(1) : "";
+        Matcher contains = CONTAINS_LIKE.matcher(conditions);
+        while (contains.find()) {
+            notes.add(contains.group(1) + " 前后模糊匹配无法使用索引，可以改用前缀匹配，或者先由名字索引找出员工ID");
+        }
+
+        Set<String> equality = columnsOf(EQUALITY, conditions, primaryKey);
+        Set<String> ranges = columnsOf(PREFIX_LIKE, conditions, primaryKey);
+        ranges.addAll(columnsOf(RANGE, conditions, primaryKey));
+        ranges.removeAll(equality);
+
+        List<String> columns = new ArrayList<>(equality);
+        if (!ranges.isEmpty()) {
+            columns.add(ranges.iterator().next());
+        } else {
+            Matcher orderBy = ORDER_BY.matcher(sql);
+            if (orderBy.find() && !primaryKey.contains(orderBy.group(1)) && !columns.contains(orderBy.group(1))) {
+                columns.add(orderBy.group(1));
+            }
+        }
+        if (columns.isEmpty()) {
+            return;
+        }
+        int conditionCount = columns.size();
+
+        Matcher select = SELECT_LIST.matcher(sql);
+        boolean covering = false;
+        if (select.find()) {
+            String list = select.group(1).trim();
+            if (list.toUpperCase().startsWith("COUNT(")) {
+                covering = true;
+            } else {
+                Set<String> extra = new LinkedHashSet<>();
+                boolean simple = true;
+                for (String column : list.split(",")) {
+                    column = column.trim();
+                    if (!SIMPLE_COLUMN.matcher(column).matches()) {
+                        simple = false;
+                        break;
+                    }
+                    if (!columns.contains(column) && !primaryKey.contains(column)) {
+                        extra.add(column);
+                    }
+                }
+                if (simple && extra.size() <= MAX_COVERING_COLUMNS) {
+                    columns.addAll(extra);
+                    covering = true;
+                }
+            }
+        }
+
+        for (Map.Entry<String, List<String>> index : indexes.entrySet()) {
+            if (!PRIMARY.equals(index.getKey()) && servedBy(index.getValue(), conditionCount, columns)) {
+                notes.add("已有索引 " + index.getKey() + index.getValue() + " 可以满足这种条件组合");
+                return;
+            }
+        }
+        advice.setRecommendedIndex("CREATE INDEX idx_" + table + "_" + String.join("_", columns)
+            + " ON " + table + " (" + String.join(", ", columns) + ")");
+        advice.setRecommendedCovering(covering);
+    }
+
+    /**
+     * 已有索引是否可以满足：索引的前几列正好是条件中的列（顺序不限，排在后面的条件列由索引条件下推过滤），
+     * 为了覆盖查询加上的列也都在索引中
+     */
+    private static boolean servedBy(List<String> index, int conditionCount, List<String> columns) {
+        if (index.size() < conditionCount) {
+            return false;
+        }
+        if (!new HashSet<>(index.subList(0, conditionCount)).equals(new HashSet<>(columns.subList(0, conditionCount)))) {
+            return false;
+        }
+        return index.containsAll(columns.subList(conditionCount, columns.size()));
+    }
+
+    private static Set<String> columnsOf(Pattern pattern, String conditions, Set<String> primaryKey) {
+        Set<String> columns = new LinkedHashSet<>();
+        Matcher matcher = pattern.matcher(conditions);
+        while (matcher.find()) {
+            if (!primaryKey.contains(matcher.group(1))) {
+                columns.add(matcher.group(1));
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * 表上的索引及其列，按列在索引中的顺序排列
+     */
+    private static Map<String, List<String>> indexesOf(Connection connection, String table) throws SQLException {
+        Map<String, List<String>> indexes = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SHOW INDEX FROM " + table)) {
+            for (Map<String, Object> row : rowsOf(resultSet)) {
+                indexes.computeIfAbsent(valueOf(row, "Key_name"), k -> new ArrayList<>())
+                    .add(valueOf(row, "Column_name"));
+            }
+        }
+        return indexes;
+    }
+
+    private static List<Map<String, Object>> rowsOf(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        List<Map<String, Object>> rows = new ArrayList<>();
+        while (resultSet.next()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                row.put(metaData.getColumnLabel(i), resultSet.getObject(i));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static String valueOf(Map<String, Object> row, String column) {
+        for (Map.Entry<String, Object> entry : row.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(column)) {
+                return entry.getValue() == null ? null : entry.getValue().toString();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.learning.metrics;
+
+import com.example.learning.model.QueryShape;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 动态SQL实际执行过的条件组合
+ * selectByCondition 等语句按传入的条件生成不同的WHERE子句，每种组合能用上的索引各不相同，
+ * 这里按生成的SQL（去掉参数值）分别累计执行次数和耗时，
+ * 并保留每种组合第一次执行时的SQL和参数，供 IndexAdvisor 执行EXPLAIN
+ */
+@Component
+public class QueryShapes {
+
+    /**
+     * 最多记录多少种组合，超出后新的组合不再记录
+     */
+    private static final int MAX_SHAPES = 200;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * IN列表的长度不影响执行计划，统一记为 IN (?…)
+     */
+    private static final Pattern IN_LIST = Pattern.compile("IN \\( ?\\?(?: ?, ?\\?)* ?\\)", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * 记录条件组合的语句
+     */
+    @Value("${employee.sql.advisor.statements:EmployeeMapper.selectByCondition,EmployeeMapper.countByCondition,EmployeeMapper.selectByCursor}")
+    private Set<String> statements;
+
+    private final Map<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+
+    /**
+     * 是否记录这条语句的条件组合
+     */
+    public boolean tracks(String statement) {
+        return statements.contains(statement);
+    }
+
+    /**
+     * 记录一次执行
+     *
+     * @param statement 语句ID
+     * @param sql MyBatis生成的SQL，参数为 ?
+     * @param elapsedNanos 耗时（纳秒）
+     * @param parameters 参数值，只有第一次遇到这种组合时才会调用
+     */
+    public void record(String statement, String sql, long elapsedNanos, Supplier<List<Object>> parameters) {
+        String compact = WHITESPACE.matcher(sql).replaceAll(" ").trim();
+        String shape = IN_LIST.matcher(compact).replaceAll("IN (?…)");
+        String key = statement + '\n' + shape;
+        ShapeStats stats = shapes.get(key);
+        if (stats == null) {
+            if (shapes.size() >= MAX_SHAPES) {
+                return;
+            }
+            stats = shapes.computeIfAbsent(key, k -> new ShapeStats(statement, shape, compact, parameters.get()));
+        }
+        stats.record(elapsedNanos);
+    }
+
+    /**
+     * 所有条件组合的统计
+     */
+    public List<QueryShape> getShapes() {
+        List<QueryShape> result = new ArrayList<>(shapes.size());
+        shapes.values().forEach(stats -> result.add(stats.snapshot()));
+        return result;
+    }
+
+    /**
+     * 条件组合第一次执行时的SQL和参数
+     *
+     * @return 返回样本，统计被清空之后返回null
+     */
+    public Sample sampleOf(QueryShape shape) {
+        ShapeStats stats = shapes.get(shape.getStatement() + '\n' + shape.getShape());
+        return stats == null ? null : stats.sample;
+    }
+
+    /**
+     * 清空统计
+     */
+    public void reset() {
+        shapes.clear();
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * 一次实际执行的SQL和参数值
+     */
+    public static final class Sample {
+
+        private final String sql;
+
+        private final List<Object> parameters;
+
+        Sample(String sql, List<Object> parameters) {
+            this.sql = sql;
+            this.parameters = Collections.unmodifiableList(parameters);
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public List<Object> getParameters() {
+            return parameters;
+        }
+    }
+
+    private static final class ShapeStats {
+
+        private final String statement;
+
+        private final String shape;
+
+        private final Sample sample;
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        ShapeStats(String statement, String shape, String sql, List<Object> parameters) {
+            this.statement = statement;
+            this.shape = shape;
+            this.sample = new Sample(sql, parameters);
+        }
+
+        void record(long elapsedNanos) {
+            count.increment();
+            totalNanos.add(elapsedNanos);
+            long max = maxNanos.get();
+            while (elapsedNanos > max && !maxNanos.compareAndSet(max, elapsedNanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        QueryShape snapshot() {
+            long n = count.sum();
+            long total = totalNanos.sum();
+            QueryShape result = new QueryShape();
+            result.setStatement(statement);
+            result.setShape(shape);
+            result.setCount(n);
+            result.setTotalMillis(toMillis(total));
+            result.setAvgMillis(n == 0 ? 0 : toMillis(total / n));
+            result.setMaxMillis(toMillis(maxNanos.get()));
+            return result;
+        }
+    }
+}
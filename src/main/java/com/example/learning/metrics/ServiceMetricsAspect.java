@@ -0,0 +1,64 @@
+package com.example.learning.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务层耗时统计
+ * 记录 EmployeeService 每个方法的耗时，按方法名和结果（成功/异常）分别统计，
+ * 发布直方图和 p50、p99，可以在Prometheus中按方法设置SLO、对比发布前后的变化
+ */
+@Aspect
+@Component
+public class ServiceMetricsAspect {
+
+    private static final String METRIC_NAME = "employee.service";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 方法名和结果的组合是有限的，缓存起来避免每次调用都去注册表查找
+     */
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    @Around("execution(* com.example.learning.service.EmployeeService+.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        String outcome = "success";
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = "error";
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            timer(joinPoint.getSignature().getName(), outcome, exception)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(String method, String outcome, String exception) {
+        String key = method + '|' + outcome + '|' + exception;
+        Timer timer = timers.get(key);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(key, k -> Timer.builder(METRIC_NAME)
+                .description("EmployeeService方法的耗时")
+                .tags("method", method, "outcome", outcome, "exception", exception)
+                .publishPercentiles(0.5, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        }
+        return timer;
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.learning.metrics;
+
+import com.example.learning.model.SlowQuery;
+import com.example.learning.model.SqlStatementStatistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Mapper语句的执行统计
+ * 按语句累计执行次数、失败次数、耗时、行数和参数形态，并保留耗时最长的慢查询，
+ * 数据来自 SqlStatisticsInterceptor，代替原来配置了但没有生效的druid监控
+ *
+ * 慢查询列表保留最近 slow-window-ms 之内耗时最长的 slow-log-size 条（超过阈值才会进入），
+ * 列表已满时新的慢查询只有比其中最快的一条更慢才会替换它；
+ * 超出时间窗口的记录会被移除，很久以前的一次极慢的查询不会一直占着列表，最近的慢查询仍然能看到
+ */
+@Component
+public class SqlStatistics {
+
+    /**
+     * 同一条语句最多记录多少种参数形态，超出的计入 "(other)"
+     */
+    private static final int MAX_SHAPES = 32;
+
+    private static final String OTHER_SHAPE = "(other)";
+
+    /**
+     * 耗时超过这个值（毫秒）的查询记入慢查询列表
+     */
+    @Value("${employee.sql.slow-threshold-ms:200}")
+    private long slowThresholdMs;
+
+    /**
+     * 慢查询列表的容量，写满后只保留耗时最长的记录
+     */
+    @Value("${employee.sql.slow-log-size:100}")
+    private int slowLogSize;
+
+    /**
+     * 慢查询列表的时间窗口（毫秒），只保留这段时间之内执行的查询，0表示一直保留到清空
+     */
+    @Value("${employee.sql.slow-window-ms:3600000}")
+    private long slowWindowMs;
+
+    private final Map<String, StatementStats> statements = new ConcurrentHashMap<>();
+
+    /**
+     * 按耗时从短到长排列的堆，堆顶是列表中最快的一条，方便替换
+     */
+    private final PriorityQueue<SlowQuery> slowLog =
+        new PriorityQueue<>(Comparator.comparingDouble(SlowQuery::getElapsedMillis));
+
+    /**
+     * 记录一次执行
+     *
+     * @param statement 语句ID
+     * @param shape 绑定参数的形态
+     * @param elapsedNanos 耗时（纳秒）
+     * @param rows 返回或影响的行数，未知或执行失败时为-1
+     * @param error 执行失败的原因，成功时为null
+     * @param sql 生成代入参数之后的SQL，只有会进入慢查询列表时才会调用
+     */
+    public void record(String statement, String shape, long elapsedNanos, long rows, String error,
+                       Supplier<String> sql) {
+        StatementStats stats = statements.get(statement);
+        if (stats == null) {
+            stats = statements.computeIfAbsent(statement, k -> new StatementStats());
+        }
+        stats.record(shape, elapsedNanos, rows, error != null);
+
+        if (elapsedNanos >= TimeUnit.MILLISECONDS.toNanos(slowThresholdMs)) {
+            addSlowQuery(statement, toMillis(elapsedNanos), rows, error, sql);
+        }
+    }
+
+    /**
+     * 所有语句的统计
+     */
+    public List<SqlStatementStatistics> getStatements() {
+        List<SqlStatementStatistics> result = new ArrayList<>(statements.size());
+        statements.forEach((statement, stats) -> result.add(stats.snapshot(statement)));
+        return result;
+    }
+
+    /**
+     * 时间窗口之内耗时最长的慢查询，按耗时从长到短排列
+     */
+    public List<SlowQuery> getSlowQueries() {
+        List<SlowQuery> result;
+        synchronized (this) {
+            removeExpired();
+            result = new ArrayList<>(slowLog);
+        }
+        result.sort(Comparator.comparingDouble(SlowQuery::getElapsedMillis).reversed());
+        return result;
+    }
+
+    /**
+     * 清空统计和慢查询列表，比如在压测开始前调用
+     */
+    public void reset() {
+        statements.clear();
+        synchronized (this) {
+            slowLog.clear();
+        }
+    }
+
+    /**
+     * 列表未满，或者比列表中最快的一条更慢时加入列表；只有加入时才生成SQL
+     */
+    private synchronized void addSlowQuery(String statement, double elapsedMillis, long rows, String error,
+                                           Supplier<String> sql) {
+        if (slowLogSize <= 0) {
+            return;
+        }
+        removeExpired();
+        if (slowLog.size() >= slowLogSize) {
+            if (slowLog.peek().getElapsedMillis() >= elapsedMillis) {
+                return;
+            }
+            slowLog.poll();
+        }
+        SlowQuery slowQuery = new SlowQuery();
+        slowQuery.setStatement(statement);
+        slowQuery.setExecutedAt(LocalDateTime.now());
+        slowQuery.setElapsedMillis(elapsedMillis);
+        slowQuery.setRows(rows);
+        slowQuery.setError(error);
+        slowQuery.setSql(sql.get());
+        slowLog.add(slowQuery);
+    }
+
+    /**
+     * 移除超出时间窗口的慢查询，调用方必须持有 this 的锁
+     */
+    private void removeExpired() {
+        if (slowWindowMs <= 0 || slowLog.isEmpty()) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(slowWindowMs, ChronoUnit.MILLIS);
+        slowLog.removeIf(slowQuery -> slowQuery.getExecutedAt().isBefore(cutoff));
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * 一条语句的累计数据
+     * 耗时按微秒记入对数分桶的直方图：每个2的幂区间再分4个桶，估算的百分位误差不超过25%，
+     * 只占固定的内存，不需要保存每次的耗时
+     */
+    private static final class StatementStats {
+
+        private static final int SUB_BUCKETS = 4;
+
+        private static final int BUCKETS = 62 * SUB_BUCKETS;
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder errors = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final LongAdder rows = new LongAdder();
+
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        private final Map<String, LongAdder> shapes = new ConcurrentHashMap<>();
+
+        void record(String shape, long elapsedNanos, long rowCount, boolean failed) {
+            count.increment();
+            if (failed) {
+                errors.increment();
+            }
+            totalNanos.add(elapsedNanos);
+            if (rowCount > 0) {
+                rows.add(rowCount);
+            }
+            long max = maxNanos.get();
+            while (elapsedNanos > max && !maxNanos.compareAndSet(max, elapsedNanos)) {
+                max = maxNanos.get();
+            }
+            histogram.incrementAndGet(bucketOf(TimeUnit.NANOSECONDS.toMicros(elapsedNanos)));
+
+            LongAdder shapeCount = shapes.get(shape);
+            if (shapeCount == null) {
+                String key = shapes.size() < MAX_SHAPES ? shape : OTHER_SHAPE;
+                shapeCount = shapes.computeIfAbsent(key, k -> new LongAdder());
+            }
+            shapeCount.increment();
+        }
+
+        SqlStatementStatistics snapshot(String statement) {
+            long n = count.sum();
+            long total = totalNanos.sum();
+            SqlStatementStatistics statistics = new SqlStatementStatistics();
+            statistics.setStatement(statement);
+            statistics.setCount(n);
+            statistics.setErrors(errors.sum());
+            statistics.setTotalMillis(toMillis(total));
+            statistics.setAvgMillis(n == 0 ? 0 : toMillis(total / n));
+            statistics.setMaxMillis(toMillis(maxNanos.get()));
+            statistics.setP99Millis(Math.min(percentileMicros(0.99) / 1000.0, statistics.getMaxMillis()));
+            statistics.setRows(rows.sum());
+
+            Map<String, Long> shapeCounts = new LinkedHashMap<>();
+            shapes.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                .forEach(e -> shapeCounts.put(e.getKey(), e.getValue().sum()));
+            statistics.setParameterShapes(shapeCounts);
+            return statistics;
+        }
+
+        /**
+         * 按直方图估算百分位，返回所在桶的上界（微秒）
+         */
+        private double percentileMicros(double percentile) {
+            long[] counts = new long[BUCKETS];
+            long n = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = histogram.get(i);
+                n += counts[i];
+            }
+            if (n == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile * n);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return upperBoundOf(i);
+                }
+            }
+            return upperBoundOf(BUCKETS - 1);
+        }
+
+        /**
+         * 0~3微秒各占一个桶，之后每个 [2^e, 2^(e+1)) 区间平分成4个桶
+         */
+        static int bucketOf(long micros) {
+            if (micros < SUB_BUCKETS) {
+                return (int) Math.max(micros, 0);
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(micros);
+            int sub = (int) (micros >>> (exponent - 2)) & (SUB_BUCKETS - 1);
+            return Math.min((exponent - 1) * SUB_BUCKETS + sub, BUCKETS - 1);
+        }
+
+        static double upperBoundOf(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket + 1;
+            }
+            int exponent = bucket / SUB_BUCKETS + 1;
+            int sub = bucket % SUB_BUCKETS;
+            return (double) (SUB_BUCKETS + sub + 1) * (1L << (exponent - 2));
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.learning.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.InvocationTargetException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * MyBatis语句统计插件
+ * 拦截 StatementHandler 的执行，按Mapper语句（比如 EmployeeMapper.selectByCondition）
+ * 记录耗时、返回的行数和绑定参数的形态，慢查询额外生成代入参数之后的SQL，
+ * 动态条件的语句还按生成的SQL记录条件组合（见 QueryShapes）
+ * 执行失败（包括超时）的语句同样记录，并单独计数，否则最慢的那些执行反而不会出现在统计中
+ *
+ * 声明为Bean后由 mybatis-spring-boot 自动注册到 SqlSessionFactory
+ */
+@Component
+@Intercepts({
+    @Signature(type = StatementHandler.class, method = "query", args = {Statement.class, ResultHandler.class}),
+    @Signature(type = StatementHandler.class, method = "queryCursor", args = {Statement.class}),
+    @Signature(type = StatementHandler.class, method = "update", args = {Statement.class})
+})
+public class SqlStatisticsInterceptor implements Interceptor {
+
+    private static final String METRIC_NAME = "mybatis.statement";
+
+    /**
+     * foreach 展开后的参数名，比如 __frch_id_3，统一记为 id[]
+     */
+    private static final Pattern FOREACH_PARAMETER = Pattern.compile("__frch_([A-Za-z0-9_]+?)_\\d+");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * 慢查询SQL中单个参数值的最大长度
+     */
+    private static final int MAX_VALUE_LENGTH = 100;
+
+    @Autowired
+    private SqlStatistics sqlStatistics;
+
+    @Autowired
+    private QueryShapes queryShapes;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        long start = System.nanoTime();
+        Object result = null;
+        Throwable error = null;
+        try {
+            result = invocation.proceed();
+            return result;
+        } catch (Throwable e) {
+            error = e;
+            throw e;
+        } finally {
+            record(invocation, System.nanoTime() - start, result, error);
+        }
+    }
+
+    private void record(Invocation invocation, long elapsed, Object result, Throwable error) {
+        StatementHandler handler = (StatementHandler) invocation.getTarget();
+        MappedStatement mappedStatement = mappedStatementOf(handler);
+        if (mappedStatement == null) {
+            return;
+        }
+        String statement = shortId(mappedStatement.getId());
+        BoundSql boundSql = handler.getBoundSql();
+        sqlStatistics.record(statement, shapeOf(boundSql), elapsed, error == null ? rowsOf(result) : -1,
+            errorOf(error), () -> render(mappedStatement.getConfiguration(), boundSql));
+        if (queryShapes.tracks(statement)) {
+            queryShapes.record(statement, boundSql.getSql(), elapsed,
+                () -> parameterValues(mappedStatement.getConfiguration(), boundSql));
+        }
+        timer(statement, error == null ? "success" : "error").record(elapsed, TimeUnit.NANOSECONDS);
+    }
+
+    private static MappedStatement mappedStatementOf(StatementHandler handler) {
+        // 实际被拦截的是 RoutingStatementHandler，MappedStatement 在它代理的具体实现上
+        MetaObject metaObject = SystemMetaObject.forObject(handler);
+        if (metaObject.hasGetter("delegate.mappedStatement")) {
+            return (MappedStatement) metaObject.getValue("delegate.mappedStatement");
+        }
+        if (metaObject.hasGetter("mappedStatement")) {
+            return (MappedStatement) metaObject.getValue("mappedStatement");
+        }
+        return null;
+    }
+
+    /**
+     * com.example.learning.mapper.EmployeeMapper.selectById 缩短为 EmployeeMapper.selectById
+     */
+    private static String shortId(String id) {
+        int method = id.lastIndexOf('.');
+        int type = method > 0 ? id.lastIndexOf('.', method - 1) : -1;
+        return id.substring(type + 1);
+    }
+
+    /**
+     * 失败原因，比如 SQLTimeoutException: Statement cancelled due to timeout；执行成功时为null
+     */
+    private static String errorOf(Throwable error) {
+        if (error == null) {
+            return null;
+        }
+        // 反射调用时JDBC的异常被包在 InvocationTargetException 里
+        Throwable cause = error instanceof InvocationTargetException && error.getCause() != null
+            ? error.getCause() : error;
+        return cause.getClass().getSimpleName() + ": " + cause.getMessage();
+    }
+
+    private static long rowsOf(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Integer) {
+            return (Integer) result;
+        }
+        // 游标查询执行时还没有读取数据
+        return -1;
+    }
+
+    /**
+     * 参数形态：按顺序列出参数名，连续相同的参数合并，比如 "isActive,id[]×20,limit"
+     * 不包含参数值，同一种形态的语句可以复用执行计划
+     */
+    static String shapeOf(BoundSql boundSql) {
+        List<ParameterMapping> mappings = boundSql.getParameterMappings();
+        if (mappings.isEmpty()) {
+            return "";
+        }
+        StringBuilder shape = new StringBuilder();
+        String previous = null;
+        int repeat = 0;
+        for (ParameterMapping mapping : mappings) {
+            String name = FOREACH_PARAMETER.matcher(mapping.getProperty()).replaceAll("$1[]");
+            if (name.equals(previous)) {
+                repeat++;
+                continue;
+            }
+            appendShape(shape, previous, repeat);
+            previous = name;
+            repeat = 1;
+        }
+        appendShape(shape, previous, repeat);
+        return shape.toString();
+    }
+
+    private static void appendShape(StringBuilder shape, String name, int repeat) {
+        if (name == null) {
+            return;
+        }
+        if (shape.length() > 0) {
+            shape.append(',');
+        }
+        shape.append(name);
+        if (repeat > 1) {
+            shape.append('×').append(repeat);
+        }
+    }
+
+    /**
+     * 把参数值代入SQL
+     */
+    static String render(Configuration configuration, BoundSql boundSql) {
+        String sql = WHITESPACE.matcher(boundSql.getSql()).replaceAll(" ").trim();
+        List<ParameterMapping> mappings = boundSql.getParameterMappings();
+        List<Object> values = parameterValues(configuration, boundSql);
+        StringBuilder rendered = new StringBuilder(sql.length() + mappings.size() * 8);
+        int from = 0;
+        for (int i = 0; i < mappings.size(); i++) {
+            int placeholder = sql.indexOf('?', from);
+            if (placeholder < 0) {
+                break;
+            }
+            rendered.append(sql, from, placeholder);
+            from = placeholder + 1;
+            rendered.append(mappings.get(i).getMode() == ParameterMode.OUT ? "?" : literal(values.get(i)));
+        }
+        rendered.append(sql, from, sql.length());
+        return rendered.toString();
+    }
+
+    /**
+     * 按顺序取出每个 ? 对应的参数值，取值方式和 DefaultParameterHandler 一致，输出参数为null
+     */
+    static List<Object> parameterValues(Configuration configuration, BoundSql boundSql) {
+        List<ParameterMapping> mappings = boundSql.getParameterMappings();
+        Object parameter = boundSql.getParameterObject();
+        MetaObject metaParameter = null;
+        List<Object> values = new ArrayList<>(mappings.size());
+        for (ParameterMapping mapping : mappings) {
+            String property = mapping.getProperty();
+            Object value;
+            if (mapping.getMode() == ParameterMode.OUT) {
+                value = null;
+            } else if (boundSql.hasAdditionalParameter(property)) {
+                value = boundSql.getAdditionalParameter(property);
+            } else if (parameter == null) {
+                value = null;
+            } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameter.getClass())) {
+                value = parameter;
+            } else {
+                if (metaParameter == null) {
+                    metaParameter = configuration.newMetaObject(parameter);
+                }
+                value = metaParameter.getValue(property);
+            }
+            values.add(value);
+        }
+        return values;
+    }
+
+    private static String literal(Object value) {
+        if (value == null) {
+            return "NULL";
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        String text = value.toString();
+        if (text.length() > MAX_VALUE_LENGTH) {
+            text = text.substring(0, MAX_VALUE_LENGTH) + "...";
+        }
+        return '\'' + text.replace("'", "''") + '\'';
+    }
+
+    private Timer timer(String statement, String outcome) {
+        String key = statement + '|' + outcome;
+        Timer timer = timers.get(key);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(key, k -> Timer.builder(METRIC_NAME)
+                .description("Mapper语句的执行耗时")
+                .tag("statement", statement)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry));
+        }
+        return timer;
+    }
+}
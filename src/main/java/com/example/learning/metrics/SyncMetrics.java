@@ -0,0 +1,58 @@
+package com.example.learning.metrics;
+
+import com.example.learning.model.SyncResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同步相关的指标
+ * 每次同步结束后累计各类记录的数量，并记录同步的耗时
+ */
+@Component
+public class SyncMetrics {
+
+    private static final String RECORDS = "employee.sync.records";
+
+    private static final String DURATION = "employee.sync.duration";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 记录一次同步的结果
+     *
+     * @param mode 同步方式，FULL 或 INCREMENTAL
+     * @param result 同步结果
+     * @param durationNanos 同步耗时（纳秒）
+     */
+    public void record(String mode, SyncResult result, long durationNanos) {
+        count(mode, "parsed", result.getParsed());
+        count(mode, "inserted", result.getInserted());
+        count(mode, "updated", result.getUpdated());
+        count(mode, "unchanged", result.getUnchanged());
+        count(mode, "rejected", result.getRejected());
+        count(mode, "deleted", result.getDeleted());
+
+        String outcome = result.isSuccess() ? "success" : result.isCancelled() ? "cancelled" : "failed";
+        Timer.builder(DURATION)
+            .description("一次同步的耗时")
+            .tags("mode", mode, "outcome", outcome)
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry)
+            .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void count(String mode, String result, long amount) {
+        Counter.builder(RECORDS)
+            .description("同步处理的记录数")
+            .baseUnit("records")
+            .tags("mode", mode, "result", result)
+            .register(meterRegistry)
+            .increment(amount);
+    }
+}
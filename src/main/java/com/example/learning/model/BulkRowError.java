@@ -0,0 +1,24 @@
+package com.example.learning.model;
+
+import lombok.Data;
+
+/**
+ * 批量写入中失败的一条记录
+ */
+@Data
+public class BulkRowError {
+    /**
+     * 记录在请求中的位置，从0开始
+     */
+    private long index;
+
+    /**
+     * 员工ID，记录无法解析时为null
+     */
+    private Integer userId;
+
+    /**
+     * 失败原因
+     */
+    private String message;
+}
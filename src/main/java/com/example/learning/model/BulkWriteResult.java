@@ -0,0 +1,58 @@
+package com.example.learning.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量写入结果
+ * 成功的记录只计数，失败的记录逐条列出，调用方可以只重发失败的部分
+ */
+@Data
+public class BulkWriteResult {
+    /**
+     * 写入方式
+     */
+    private String mode;
+
+    /**
+     * 请求中读到的记录数
+     */
+    private long received;
+
+    /**
+     * 新增的记录数
+     */
+    private long inserted;
+
+    /**
+     * 修改的记录数
+     */
+    private long updated;
+
+    /**
+     * 失败的记录数
+     */
+    private long failed;
+
+    /**
+     * 是否读完了整个请求；请求体格式错误时，出错位置之前的记录已经写入，之后的没有处理
+     */
+    private boolean complete;
+
+    /**
+     * 请求体格式错误的原因
+     */
+    private String error;
+
+    /**
+     * 失败的记录，最多列出前1000条
+     */
+    private List<BulkRowError> errors = new ArrayList<>();
+
+    /**
+     * 失败的记录超过列出的上限
+     */
+    private boolean errorsTruncated;
+}
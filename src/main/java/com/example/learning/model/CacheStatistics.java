@@ -0,0 +1,39 @@
+package com.example.learning.model;
+
+import lombok.Data;
+
+/**
+ * 缓存的运行统计
+ */
+@Data
+public class CacheStatistics {
+    /**
+     * 缓存名称
+     */
+    private String name;
+
+    /**
+     * 当前缓存的条目数（估算值）
+     */
+    private long size;
+
+    /**
+     * 命中次数
+     */
+    private long hitCount;
+
+    /**
+     * 未命中次数
+     */
+    private long missCount;
+
+    /**
+     * 命中率，0到1之间
+     */
+    private double hitRate;
+
+    /**
+     * 因为容量或过期被淘汰的条目数
+     */
+    private long evictionCount;
+}
@@ -0,0 +1,32 @@
+package com.example.learning.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 游标分页的结果
+ * 不返回总记录数和页码，只返回当前页的数据和前后翻页用的游标
+ */
+@Data
+public class CursorPage<T> {
+    /**
+     * 当前页的数据
+     */
+    private List<T> items;
+
+    /**
+     * 每页数量
+     */
+    private int pageSize;
+
+    /**
+     * 下一页的游标，没有下一页时为null
+     */
+    private String nextCursor;
+
+    /**
+     * 上一页的游标，已经是第一页时为null
+     */
+    private String prevCursor;
+}
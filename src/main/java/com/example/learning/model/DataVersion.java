@@ -0,0 +1,19 @@
+package com.example.learning.model;
+
+import lombok.Data;
+
+/**
+ * 员工表的数据版本，用于列表接口的条件请求（If-None-Match / If-Modified-Since）
+ */
+@Data
+public class DataVersion {
+    /**
+     * 弱ETag，数据每次变化都会不同
+     */
+    private String etag;
+
+    /**
+     * 最后一次变化的时间（毫秒），应用启动后还没有变化时为启动时间
+     */
+    private long lastModified;
+}
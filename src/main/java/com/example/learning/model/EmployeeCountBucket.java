@@ -0,0 +1,24 @@
+package com.example.learning.model;
+
+import lombok.Data;
+
+/**
+ * 按级别和在职状态分组的员工数量
+ */
+@Data
+public class EmployeeCountBucket {
+    /**
+     * 员工级别
+     */
+    private Byte level;
+
+    /**
+     * 是否在职
+     */
+    private Boolean isActive;
+
+    /**
+     * 这一组的员工数量
+     */
+    private long total;
+}
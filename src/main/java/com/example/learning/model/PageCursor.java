@@ -0,0 +1,80 @@
+package com.example.learning.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 分页游标
+ * 记录翻页的方向和起点ID，对外编码成一个不透明的字符串，调用方只需要原样传回
+ */
+public class PageCursor {
+
+    private static final String NEXT = "n";
+
+    private static final String PREV = "p";
+
+    /**
+     * 是否向前翻页（查询ID更小的记录）
+     */
+    private final boolean backward;
+
+    /**
+     * 起点ID，不包含这个ID本身
+     */
+    private final int userId;
+
+    private PageCursor(boolean backward, int userId) {
+        this.backward = backward;
+        this.userId = userId;
+    }
+
+    /**
+     * 下一页的游标：查询ID大于userId的记录
+     */
+    public static PageCursor after(int userId) {
+        return new PageCursor(false, userId);
+    }
+
+    /**
+     * 上一页的游标：查询ID小于userId的记录
+     */
+    public static PageCursor before(int userId) {
+        return new PageCursor(true, userId);
+    }
+
+    public boolean isBackward() {
+        return backward;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public String encode() {
+        String raw = (backward ? PREV : NEXT) + ":" + userId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标字符串
+     * 
+     * @throws IllegalArgumentException 游标格式不正确时抛出
+     */
+    public static PageCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            String direction = raw.substring(0, separator);
+            int userId = Integer.parseInt(raw.substring(separator + 1));
+            if (NEXT.equals(direction)) {
+                return after(userId);
+            }
+            if (PREV.equals(direction)) {
+                return before(userId);
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("无效的分页游标: " + cursor, e);
+        }
+        throw new IllegalArgumentException("无效的分页游标: " + cursor);
+    }
+}
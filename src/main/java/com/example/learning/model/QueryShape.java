@@ -0,0 +1,39 @@
+package com.example.learning.model;
+
+import lombok.Data;
+
+/**
+ * 动态SQL的一种条件组合的执行统计
+ */
+@Data
+public class QueryShape {
+    /**
+     * 语句ID，比如 EmployeeMapper.selectByCondition
+     */
+    private String statement;
+
+    /**
+     * 生成的SQL，参数为 ?，IN列表记为 IN (?…)
+     */
+    private String shape;
+
+    /**
+     * 执行次数
+     */
+    private long count;
+
+    /**
+     * 累计耗时（毫秒）
+     */
+    private double totalMillis;
+
+    /**
+     * 平均耗时（毫秒）
+     */
+    private double avgMillis;
+
+    /**
+     * 最长耗时（毫秒）
+     */
+    private double maxMillis;
+}
@@ -0,0 +1,57 @@
+package com.example.learning.model;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一种条件组合的执行计划分析和索引建议
+ */
+@Data
+public class QueryShapeAdvice {
+    /**
+     * 条件组合及其执行统计
+     */
+    private QueryShape query;
+
+    /**
+     * EXPLAIN的结果，每行对应执行计划中的一个表
+     */
+    private List<Map<String, Object>> plan;
+
+    /**
+     * 实际使用的索引，没有使用索引时为null
+     */
+    private String key;
+
+    /**
+     * 是否扫描了整张表（type=ALL）或者整个索引（type=index）
+     */
+    private boolean fullScan;
+
+    /**
+     * 是否需要额外排序（Using filesort）
+     */
+    private boolean filesort;
+
+    /**
+     * 是否只读索引就完成了查询（Using index）
+     */
+    private boolean coveringIndex;
+
+    /**
+     * 建议添加的索引，已有索引可以满足时为null
+     */
+    private String recommendedIndex;
+
+    /**
+     * 建议的索引是否包含查询需要的所有列
+     */
+    private boolean recommendedCovering;
+
+    /**
+     * 说明
+     */
+    private List<String> notes;
+}
@@ -0,0 +1,59 @@
+package com.example.learning.model;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * 一个分组的工资统计结果
+ * 没有参与分组的维度为null
+ * 注意：不按货币分组时，不同货币的工资会直接相加
+ */
+@Data
+public class SalaryAggregate {
+    /**
+     * 级别
+     */
+    private Byte level;
+
+    /**
+     * 货币
+     */
+    private String currency;
+
+    /**
+     * 是否在职
+     */
+    private Boolean isActive;
+
+    /**
+     * 员工数
+     */
+    private long count;
+
+    /**
+     * 工资总额
+     */
+    private BigDecimal sum;
+
+    /**
+     * 平均工资
+     */
+    private BigDecimal avg;
+
+    /**
+     * 最低工资
+     */
+    private BigDecimal min;
+
+    /**
+     * 最高工资
+     */
+    private BigDecimal max;
+
+    /**
+     * 工资百分位，键是 p50、p90 这样的名称
+     */
+    private Map<String, BigDecimal> percentiles;
+}
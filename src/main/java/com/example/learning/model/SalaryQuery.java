@@ -0,0 +1,36 @@
+package com.example.learning.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 工资统计的查询条件
+ */
+@Data
+public class SalaryQuery {
+    /**
+     * 分组维度，可选 level、currency、isActive，为空时所有员工作为一组
+     */
+    private List<String> groupBy;
+
+    /**
+     * 只统计这个级别的员工
+     */
+    private Byte level;
+
+    /**
+     * 只统计这种货币的员工
+     */
+    private String currency;
+
+    /**
+     * 只统计在职（或离职）的员工
+     */
+    private Boolean isActive;
+
+    /**
+     * 需要计算的百分位，比如 50、90、99
+     */
+    private List<Double> percentiles;
+}
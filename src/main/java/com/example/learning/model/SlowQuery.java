@@ -0,0 +1,41 @@
+package com.example.learning.model;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 一次慢查询的记录
+ */
+@Data
+public class SlowQuery {
+    /**
+     * 语句ID
+     */
+    private String statement;
+
+    /**
+     * 执行时间
+     */
+    private LocalDateTime executedAt;
+
+    /**
+     * 耗时（毫秒）
+     */
+    private double elapsedMillis;
+
+    /**
+     * 返回（或影响）的行数，游标查询和执行失败时为-1
+     */
+    private long rows;
+
+    /**
+     * 执行失败的原因，比如超时，成功时为null
+     */
+    private String error;
+
+    /**
+     * 代入参数之后的SQL，过长的参数值会被截断
+     */
+    private String sql;
+}
@@ -0,0 +1,57 @@
+package com.example.learning.model;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 一条Mapper语句的执行统计
+ */
+@Data
+public class SqlStatementStatistics {
+    /**
+     * 语句ID，比如 EmployeeMapper.selectByCondition
+     */
+    private String statement;
+
+    /**
+     * 执行次数，包括失败的执行
+     */
+    private long count;
+
+    /**
+     * 执行失败（包括超时）的次数
+     */
+    private long errors;
+
+    /**
+     * 累计耗时（毫秒）
+     */
+    private double totalMillis;
+
+    /**
+     * 平均耗时（毫秒）
+     */
+    private double avgMillis;
+
+    /**
+     * 99%的执行不超过这个耗时（毫秒），按直方图估算，误差在25%以内
+     */
+    private double p99Millis;
+
+    /**
+     * 最长耗时（毫秒）
+     */
+    private double maxMillis;
+
+    /**
+     * 累计返回（或影响）的行数
+     */
+    private long rows;
+
+    /**
+     * 绑定参数的形态及其出现次数，比如 "lastName,limit,offset" 或 "ids[]×20"
+     * 同一条动态SQL在不同条件下会生成不同的语句，可以从这里看出哪种条件组合最常用
+     */
+    private Map<String, Long> parameterShapes;
+}
@@ -0,0 +1,70 @@
+package com.example.learning.model;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 同步任务状态
+ * 任务状态查询接口返回的数据
+ */
+@Data
+public class SyncJobStatus {
+    private String jobId;
+
+    /**
+     * 任务状态：QUEUED、RUNNING、SUCCEEDED、FAILED、CANCELLED、REJECTED
+     * REJECTED 表示开始执行时已有其他同步（比如 /api/employees/sync）正在执行，任务没有执行，可以重新提交
+     */
+    private String state;
+
+    private boolean incremental;
+
+    private boolean deleteMissing;
+
+    private LocalDateTime submittedAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    /**
+     * 已经解析的记录数
+     */
+    private long recordsParsed;
+
+    /**
+     * 已经处理完的记录数（写入、跳过或丢弃）
+     */
+    private long recordsProcessed;
+
+    /**
+     * 校验失败被丢弃的记录数
+     */
+    private long rejected;
+
+    /**
+     * 平均每秒处理的记录数
+     */
+    private double recordsPerSecond;
+
+    /**
+     * 按已读取字节数估算的完成百分比，数据源大小未知时为null
+     */
+    private Double percentComplete;
+
+    /**
+     * 预计剩余秒数，无法估算时为null
+     */
+    private Long etaSeconds;
+
+    /**
+     * 任务结束后的同步结果
+     */
+    private SyncResult result;
+
+    /**
+     * 任务失败时的错误信息
+     */
+    private String error;
+}
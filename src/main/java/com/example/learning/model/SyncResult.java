@@ -0,0 +1,71 @@
+package com.example.learning.model;
+
+import lombok.Data;
+
+/**
+ * 同步结果
+ * 记录一次同步中每类记录的数量，方便调用方了解同步到底做了什么
+ */
+@Data
+public class SyncResult {
+    /**
+     * 同步运行ID，中断后再次同步时会沿用同一个ID
+     */
+    private Long runId;
+
+    /**
+     * 同步是否成功完成
+     */
+    private boolean success;
+
+    /**
+     * 同步是否被取消
+     */
+    private boolean cancelled;
+
+    /**
+     * 已有同步正在执行，这次同步没有执行
+     * 和执行失败（success为false）区分开，调用方可以稍后重试
+     */
+    private boolean alreadyRunning;
+
+    /**
+     * 没有执行或者执行失败时的说明
+     */
+    private String message;
+
+    /**
+     * 从数据源中解析出的记录数
+     */
+    private long parsed;
+
+    /**
+     * 新插入的记录数
+     */
+    private long inserted;
+
+    /**
+     * 内容有变化、被更新的记录数
+     */
+    private long updated;
+
+    /**
+     * 内容没有变化、被跳过的记录数
+     */
+    private long unchanged;
+
+    /**
+     * 数据源中已经不存在、被删除的记录数
+     */
+    private long deleted;
+
+    /**
+     * 校验失败、被丢弃的记录数
+     */
+    private long rejected;
+
+    /**
+     * 上一次中断前已经提交、本次直接跳过的数据块数
+     */
+    private long resumedChunks;
+}
@@ -0,0 +1,103 @@
+package com.example.learning.projection;
+
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.util.StringUtils;
+
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 员工接口可以单独查询的字段
+ * 通过请求参数 fields=userId,lastName,isActive 选择，只查询对应的列，响应中也只包含这些属性
+ * 列名只能来自这里，不会把请求参数直接拼进SQL
+ */
+public enum EmployeeField {
+
+    USER_ID("userId", "user_id"),
+    FIRST_NAME("firstName", "first_name"),
+    LAST_NAME("lastName", "last_name"),
+    SALARY("salary", "salary"),
+    CURRENCY("currency", "currency"),
+    BIRTHDATE("birthdate", "birthdate"),
+    IS_ACTIVE("isActive", "is_active"),
+    LEVEL("level", "level"),
+    CREATED_AT("createdAt", "created_at"),
+    UPDATED_AT("updatedAt", "updated_at");
+
+    /**
+     * Employee上 @JsonFilter 的名字
+     */
+    public static final String FILTER_ID = "employeeFields";
+
+    /**
+     * 不选择字段时输出全部属性，注册到所有序列化Employee的ObjectMapper上
+     */
+    public static final FilterProvider ALL_FIELDS = new SimpleFilterProvider()
+        .addFilter(FILTER_ID, SimpleBeanPropertyFilter.serializeAll());
+
+    private final String property;
+
+    private final String column;
+
+    EmployeeField(String property, String column) {
+        this.property = property;
+        this.column = column;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * 解析逗号分隔的属性名
+     * 
+     * @param fields 请求参数，比如 "userId,lastName"
+     * @return 选择的字段，参数为空时返回null，表示全部字段
+     * @throws IllegalArgumentException 包含未知的属性名时抛出
+     */
+    public static Set<EmployeeField> parse(String fields) {
+        if (!StringUtils.hasText(fields)) {
+            return null;
+        }
+        Set<EmployeeField> result = EnumSet.noneOf(EmployeeField.class);
+        for (String name : StringUtils.commaDelimitedListToStringArray(fields)) {
+            name = name.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            result.add(of(name));
+        }
+        if (result.isEmpty()) {
+            throw new IllegalArgumentException("没有选择任何字段: " + fields);
+        }
+        return result;
+    }
+
+    private static EmployeeField of(String property) {
+        for (EmployeeField field : values()) {
+            if (field.property.equals(property)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("未知的字段: " + property);
+    }
+
+    /**
+     * 只输出选择的属性
+     */
+    public static FilterProvider filterOf(Set<EmployeeField> fields) {
+        Set<String> properties = new HashSet<>();
+        for (EmployeeField field : fields) {
+            properties.add(field.property);
+        }
+        return new SimpleFilterProvider()
+            .addFilter(FILTER_ID, SimpleBeanPropertyFilter.filterOutAllExcept(properties));
+    }
+}
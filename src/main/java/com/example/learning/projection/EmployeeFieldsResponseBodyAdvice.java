@@ -0,0 +1,42 @@
+package com.example.learning.projection;
+
+import com.example.learning.controller.EmployeeController;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+import java.util.Set;
+
+/**
+ * 按请求参数 fields 过滤员工接口的响应
+ * 查询时没有选择的列在Employee中为null，这里再把它们从JSON（以及Smile、CBOR）中去掉，
+ * 响应里只有选择的属性；参数是否合法由接口先校验
+ */
+@ControllerAdvice(assignableTypes = EmployeeController.class)
+public class EmployeeFieldsResponseBodyAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    public static final String FIELDS_PARAMETER = "fields";
+
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer, MediaType contentType,
+            MethodParameter returnType, ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest)) {
+            return;
+        }
+        String fields = ((ServletServerHttpRequest) request).getServletRequest().getParameter(FIELDS_PARAMETER);
+        Set<EmployeeField> selected;
+        try {
+            selected = EmployeeField.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        if (selected != null) {
+            bodyContainer.setFilters(EmployeeField.filterOf(selected));
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package com.example.learning.search;
+
+import com.example.learning.entity.Employee;
+import com.example.learning.event.EmployeeChangeEvent;
+import com.example.learning.mapper.EmployeeMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * 员工姓名的三元组（trigram）索引
+ * LIKE '%..%' 以通配符开头，用不上姓氏索引，每次搜索都是全表扫描
+ * 
+ * 这里把每个员工的姓和名规范化之后拆成连续的三个字符，记录每个三元组出现在哪些员工中
+ * 查询时取查询词所有三元组对应员工的交集作为候选，再逐个确认是否真的包含查询词
+ * 
+ * 规范化包括：Unicode兼容分解、去掉重音等组合符号、统一小写、去掉首尾空白、连续空白合并为一个空格，
+ * 所以 "   Crankshaw" 和 "crankshaw"、带点的希伯来文和不带点的希伯来文都能互相匹配
+ * 
+ * 索引在应用启动后由后台线程从数据库构建，构建完成之前搜索仍然使用SQL；
+ * 之后根据员工变更事件保持和数据库一致
+ * 
+ * 搜索时索引只用来缩小SQL扫描的范围，SQL仍然按 LIKE 确认姓氏，结果以数据库为准：
+ * 索引比数据库旧时不会返回错误的员工，规范化多出来的匹配（比如 muller 和 Müller）由数据库的排序规则决定是否保留
+ */
+@Component
+public class NameSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(NameSearchIndex.class);
+
+    private static final int GRAM = 3;
+
+    private static final int BUILD_BATCH_SIZE = 1000;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * 区分姓和名的三元组，作为键的第一个字符
+     */
+    private static final char LAST_NAME = 'L';
+    private static final char FIRST_NAME = 'F';
+
+    @Autowired
+    private EmployeeMapper employeeMapper;
+
+    @Value("${employee.search.index-enabled:true}")
+    private boolean enabled;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 同一时间只允许一次重建，避免两次重建交错时把不完整的索引标记为可用
+     */
+    private final Object rebuildMonitor = new Object();
+
+    private Postings index = new Postings();
+
+    /**
+     * 重建期间收到的变更，重建完成后在新索引上重放，不在重建时为null
+     * 批量变更在收到事件时已经从数据库读出了最新的姓名，重放时不再访问数据库
+     */
+    private List<Consumer<Postings>> pendingChanges;
+
+    private volatile boolean ready;
+
+    /**
+     * 应用启动完成后在后台构建索引，不阻塞启动
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        Thread builder = new Thread(this::rebuild, "name-index-builder");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    /**
+     * 从数据库重新构建索引
+     * 在锁外按主键分批读取，写入一个新的索引，读取期间的变更先记录下来，
+     * 最后在写锁中把这些变更重放到新索引上再替换，读取数据库时不阻塞查询和变更
+     * 重建期间原来的索引继续回答查询，并且照常应用变更
+     */
+    public void rebuild() {
+        synchronized (rebuildMonitor) {
+            long start = System.currentTimeMillis();
+            lock.writeLock().lock();
+            try {
+                pendingChanges = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Postings rebuilt;
+            try {
+                rebuilt = load();
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    pendingChanges = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                logger.error("构建名字索引失败，搜索将继续使用原来的索引或SQL: {}", e.getMessage(), e);
+                return;
+            }
+
+            lock.writeLock().lock();
+            try {
+                List<Consumer<Postings>> replay = pendingChanges;
+                pendingChanges = null;
+                for (Consumer<Postings> change : replay) {
+                    change.accept(rebuilt);
+                }
+                index = rebuilt;
+                ready = true;
+                logger.info("名字索引构建完成，共 {} 名员工、{} 个三元组，重放 {} 个变更，耗时 {} ms",
+                    rebuilt.names.size(), rebuilt.postings.size(), replay.size(),
+                    System.currentTimeMillis() - start);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private Postings load() {
+        Postings loaded = new Postings();
+        Integer afterId = null;
+        List<Employee> batch;
+        do {
+            batch = employeeMapper.selectNamesAfter(afterId, BUILD_BATCH_SIZE);
+            for (Employee employee : batch) {
+                loaded.put(employee);
+            }
+            if (!batch.isEmpty()) {
+                afterId = batch.get(batch.size() - 1).getUserId();
+            }
+        } while (batch.size() == BUILD_BATCH_SIZE);
+        return loaded;
+    }
+
+    /**
+     * 索引是否已经构建完成，可以用来回答查询
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 查找姓氏包含查询词的员工
+     * 
+     * @param query 查询词，匹配前会做同样的规范化
+     * @param maxResults 最多返回的员工数
+     * @return 返回按ID从小到大排列的员工ID；匹配的员工超过maxResults时返回null，
+     *         这时查询词的区分度太低，不如直接让数据库扫描
+     */
+    public List<Integer> findByLastName(String query, int maxResults) {
+        return find(LAST_NAME, 0, query, maxResults);
+    }
+
+    /**
+     * 查找名字包含查询词的员工
+     * 
+     * @see #findByLastName(String, int)
+     */
+    public List<Integer> findByFirstName(String query, int maxResults) {
+        return find(FIRST_NAME, 1, query, maxResults);
+    }
+
+    private List<Integer> find(char field, int nameIndex, String query, int maxResults) {
+        String normalized = normalize(query);
+        List<Integer> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Integer userId : index.candidates(field, normalized)) {
+                String[] indexed = index.names.get(userId);
+                // 三元组都出现不代表它们是连续的，需要确认
+                if (indexed != null && indexed[nameIndex].contains(normalized)) {
+                    if (result.size() == maxResults) {
+                        return null;
+                    }
+                    result.add(userId);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * 员工数据变更后更新索引
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(EmployeeChangeEvent.DERIVED_DATA_ORDER)
+    public void onEmployeeChanged(EmployeeChangeEvent event) {
+        if (!enabled) {
+            return;
+        }
+        switch (event.getType()) {
+            case INSERT:
+            case UPDATE:
+                List<Employee> after = Collections.singletonList(event.getAfter());
+                Collection<Integer> updatedIds = event.getUserIds();
+                apply(target -> target.write(after, updatedIds));
+                break;
+            case DELETE:
+                Collection<Integer> deletedIds = event.getUserIds();
+                apply(target -> target.write(Collections.<Employee>emptyList(), deletedIds));
+                break;
+            case TRUNCATE:
+                apply(Postings::clear);
+                break;
+            default:
+                // 批量变更只知道ID，从数据库读取最新的姓名
+                List<Integer> ids = new ArrayList<>(event.getUserIds());
+                List<Employee> current = ids.isEmpty()
+                    ? Collections.<Employee>emptyList() : employeeMapper.selectNamesByIds(ids);
+                apply(target -> target.write(current, ids));
+                break;
+        }
+    }
+
+    /**
+     * 在写锁中把变更应用到当前的索引上，正在重建时同时记录下来，重建完成后重放到新索引上
+     */
+    private void apply(Consumer<Postings> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(index);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Set<String> grams(char field, String normalized) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= normalized.length(); i++) {
+            grams.add(field + normalized.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    /**
+     * 规范化姓名，建立索引和查询时使用同样的规则
+     */
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFKD);
+        String stripped = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+        String collapsed = WHITESPACE.matcher(stripped.trim()).replaceAll(" ");
+        return Normalizer.normalize(collapsed, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 三元组索引的数据，修改和读取都由外层的锁保护
+     */
+    private static final class Postings {
+
+        /**
+         * 三元组 -> 包含它的员工ID
+         */
+        private final Map<String, Set<Integer>> postings = new HashMap<>();
+
+        /**
+         * 员工ID -> 规范化之后的 {姓, 名}，用于确认候选和删除旧的三元组
+         */
+        private final Map<Integer, String[]> names = new HashMap<>();
+
+        /**
+         * 找出包含查询词所有三元组的员工
+         * 查询词不足三个字符时没有三元组可用，所有员工都是候选
+         */
+        Set<Integer> candidates(char field, String normalized) {
+            if (normalized.length() < GRAM) {
+                return names.keySet();
+            }
+            List<Set<Integer>> lists = new ArrayList<>();
+            for (String gram : grams(field, normalized)) {
+                Set<Integer> ids = postings.get(gram);
+                if (ids == null) {
+                    return Collections.emptySet();
+                }
+                lists.add(ids);
+            }
+            // 从最短的列表开始求交集
+            lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+            Set<Integer> result = new HashSet<>(lists.get(0));
+            for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+                result.retainAll(lists.get(i));
+            }
+            return result;
+        }
+
+        /**
+         * 先删除affectedIds中的员工，再写入current
+         */
+        void write(List<Employee> current, Iterable<Integer> affectedIds) {
+            for (Integer userId : affectedIds) {
+                remove(userId);
+            }
+            for (Employee employee : current) {
+                if (employee != null) {
+                    put(employee);
+                }
+            }
+        }
+
+        void put(Employee employee) {
+            Integer userId = employee.getUserId();
+            remove(userId);
+            String[] normalized = {normalize(employee.getLastName()), normalize(employee.getFirstName())};
+            names.put(userId, normalized);
+            for (String gram : grams(LAST_NAME, normalized[0])) {
+                postings.computeIfAbsent(gram, k -> new HashSet<>()).add(userId);
+            }
+            for (String gram : grams(FIRST_NAME, normalized[1])) {
+                postings.computeIfAbsent(gram, k -> new HashSet<>()).add(userId);
+            }
+        }
+
+        void clear() {
+            postings.clear();
+            names.clear();
+        }
+
+        private void remove(Integer userId) {
+            String[] old = names.remove(userId);
+            if (old == null) {
+                return;
+            }
+            removeGrams(grams(LAST_NAME, old[0]), userId);
+            removeGrams(grams(FIRST_NAME, old[1]), userId);
+        }
+
+        private void removeGrams(Set<String> grams, Integer userId) {
+            for (String gram : grams) {
+                Set<Integer> ids = postings.get(gram);
+                if (ids != null) {
+                    ids.remove(userId);
+                    if (ids.isEmpty()) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+}
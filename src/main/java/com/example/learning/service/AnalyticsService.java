@@ -0,0 +1,21 @@
+package com.example.learning.service;
+
+import com.example.learning.model.SalaryAggregate;
+import com.example.learning.model.SalaryQuery;
+
+import java.util.List;
+
+/**
+ * 员工统计服务接口
+ * 统计在内存中的列式快照上完成，不需要把整张表查出来
+ */
+public interface AnalyticsService {
+    /**
+     * 按级别、货币、在职状态分组统计工资
+     * 
+     * @param query 分组维度、过滤条件和需要计算的百分位
+     * @return 返回每个分组的员工数、工资总额、平均值、最小值、最大值和百分位
+     * @throws IllegalArgumentException 分组维度或百分位不正确时抛出
+     */
+    List<SalaryAggregate> aggregateSalary(SalaryQuery query);
+}
@@ -1,6 +1,16 @@
 package com.example.learning.service;
 
+import com.example.learning.bulk.BulkMode;
 import com.example.learning.entity.Employee;
+import com.example.learning.export.ExportFormat;
+import com.example.learning.model.BulkWriteResult;
+import com.example.learning.model.CacheStatistics;
+import com.example.learning.model.CursorPage;
+import com.example.learning.model.DataVersion;
+import com.example.learning.model.SyncResult;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -93,9 +103,19 @@ public interface EmployeeService {
      * 同步员工数据
      * 从JSON文件中读取最新的员工数据并更新到系统中
      * 
-     * @return 返回是否同步成功
+     * @return 返回同步结果；已有同步正在执行时 alreadyRunning 为true，这次同步没有执行
      */
-    boolean syncEmployee();
+    SyncResult syncEmployee();
+
+    /**
+     * 增量同步员工数据
+     * 可以反复执行：新记录插入，有变化的记录更新，没有变化的记录直接跳过
+     * 是否有变化通过比较每条记录的内容摘要来判断
+     * 
+     * @param deleteMissing 是否删除数据源中已经不存在的记录
+     * @return 返回同步结果，包含新增、更新、未变化、删除的记录数
+     */
+    SyncResult syncEmployeeIncremental(boolean deleteMissing);
     
     /**
      * 分页查询员工
@@ -108,9 +128,79 @@ public interface EmployeeService {
      */
     List<Employee> getEmployeesByPage(Employee condition, int pageNum, int pageSize);
     
+    /**
+     * 游标分页查询员工
+     * 按员工ID排序，用游标记住上一页的位置，页数再深也不需要扫描前面的记录
+     * 
+     * @param condition 查询条件
+     * @param cursor 上一次返回的nextCursor或prevCursor，为空时查询第一页
+     * @param pageSize 每页显示数量，超过 employee.cursor.max-page-size 时按最大数量返回
+     * @return 返回当前页的员工列表和前后翻页的游标
+     * @throws IllegalArgumentException 游标格式不正确或者每页数量小于1时抛出
+     */
+    CursorPage<Employee> getEmployeesByCursor(Employee condition, String cursor, int pageSize);
+    
+    /**
+     * 流式导出符合条件的员工
+     * 一边从数据库读取一边写入输出流，不会把所有记录加载到内存
+     * 
+     * @param condition 查询条件
+     * @param format 导出格式
+     * @param out 输出流
+     * @throws IOException 写入输出流失败时抛出
+     */
+    void exportEmployees(Employee condition, ExportFormat format, OutputStream out) throws IOException;
+    
+    /**
+     * 批量写入员工
+     * 一边解析一边分块写入，每个数据块单独提交，某些记录失败不影响其他记录
+     * 
+     * @param in 请求体，JSON数组或者NDJSON
+     * @param mode 写入方式
+     * @return 返回写入结果，包括每条失败记录的原因
+     * @throws IOException 读取请求体失败时抛出
+     */
+    BulkWriteResult bulkWriteEmployees(InputStream in, BulkMode mode) throws IOException;
+    
+    /**
+     * 按条件批量修改员工
+     * 例如把级别为3的员工全部设为离职，用一条语句完成，不需要逐条修改
+     * 
+     * @param condition 过滤条件，和搜索使用相同的条件，至少要有一个
+     * @param changes 要设置的新值，只更新不为空的字段
+     * @return 返回修改的员工数
+     * @throws IllegalArgumentException 没有过滤条件或者没有要修改的字段时抛出
+     */
+    long updateEmployeesByCondition(Employee condition, Employee changes);
+    
+    /**
+     * 按条件批量删除员工
+     * 
+     * @param condition 过滤条件，和搜索使用相同的条件，至少要有一个
+     * @return 返回删除的员工数
+     * @throws IllegalArgumentException 没有过滤条件时抛出
+     */
+    long deleteEmployeesByCondition(Employee condition);
+    
+    /**
+     * 获取员工表当前的数据版本
+     * 每次写操作之后都会变化，列表接口用它处理条件请求
+     * 
+     * @return 返回ETag和最后修改时间
+     */
+    DataVersion getDataVersion();
+    
+    /**
+     * 获取员工缓存的命中、未命中和淘汰统计
+     * 
+     * @return 返回缓存统计
+     */
+    CacheStatistics getCacheStatistics();
+    
     /**
      * 获取总记录数
      * 用于分页时计算总页数
+     * 没有条件或者只按级别、在职状态查询时直接读取增量维护的统计，不执行 COUNT(*)
      * 
      * @param condition 查询条件
      * @return 返回符合条件的总记录数
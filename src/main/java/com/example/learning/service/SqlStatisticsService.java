@@ -0,0 +1,53 @@
+package com.example.learning.service;
+
+import com.example.learning.model.QueryShape;
+import com.example.learning.model.QueryShapeAdvice;
+import com.example.learning.model.SlowQuery;
+import com.example.learning.model.SqlStatementStatistics;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * SQL执行统计服务接口
+ */
+public interface SqlStatisticsService {
+    /**
+     * 获取耗时最多的语句
+     * 
+     * @param sort 排序方式，total 按累计耗时，p99 按99%分位耗时
+     * @param limit 返回的语句数
+     * @return 返回排序后的语句统计
+     * @throws IllegalArgumentException 排序方式不正确时抛出
+     */
+    List<SqlStatementStatistics> getTopStatements(String sort, int limit);
+    
+    /**
+     * 获取最近一段时间（employee.sql.slow-window-ms）之内耗时最长的慢查询，按耗时从长到短排列
+     * 
+     * @return 返回慢查询列表
+     */
+    List<SlowQuery> getSlowQueries();
+    
+    /**
+     * 获取动态SQL实际执行过的条件组合，按累计耗时从多到少排列
+     * 
+     * @param limit 返回的组合数
+     * @return 返回每种组合的执行次数和耗时
+     */
+    List<QueryShape> getQueryShapes(int limit);
+    
+    /**
+     * 对累计耗时最多的条件组合执行EXPLAIN，给出执行计划中的问题和建议添加的索引
+     * 
+     * @param limit 分析的组合数
+     * @return 返回每种组合的分析结果
+     * @throws SQLException 无法连接数据库时抛出
+     */
+    List<QueryShapeAdvice> adviseIndexes(int limit) throws SQLException;
+    
+    /**
+     * 清空统计数据
+     */
+    void reset();
+}
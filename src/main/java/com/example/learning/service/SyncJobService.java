@@ -0,0 +1,36 @@
+package com.example.learning.service;
+
+import com.example.learning.model.SyncJobStatus;
+
+/**
+ * 同步任务服务接口
+ * 把同步放到专用的后台线程池中执行，HTTP请求只负责提交任务和查询进度
+ */
+public interface SyncJobService {
+    /**
+     * 提交一个同步任务
+     * 
+     * @param incremental 是否增量同步
+     * @param deleteMissing 增量同步时是否删除数据源中已经不存在的记录
+     * @return 返回刚提交的任务状态，其中包含任务ID
+     * @throws org.springframework.core.task.TaskRejectedException 排队的任务已满时抛出
+     */
+    SyncJobStatus submit(boolean incremental, boolean deleteMissing);
+
+    /**
+     * 查询任务状态
+     * 
+     * @param jobId 任务ID
+     * @return 返回任务状态，任务不存在时返回null
+     */
+    SyncJobStatus getStatus(String jobId);
+
+    /**
+     * 取消任务
+     * 已经提交的数据块会保留，下次同步从断点继续
+     * 
+     * @param jobId 任务ID
+     * @return 返回任务状态，任务不存在时返回null
+     */
+    SyncJobStatus cancel(String jobId);
+}
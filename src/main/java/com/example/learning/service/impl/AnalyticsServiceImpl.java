@@ -0,0 +1,22 @@
+package com.example.learning.service.impl;
+
+import com.example.learning.analytics.EmployeeColumnStore;
+import com.example.learning.model.SalaryAggregate;
+import com.example.learning.model.SalaryQuery;
+import com.example.learning.service.AnalyticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public class AnalyticsServiceImpl implements AnalyticsService {
+
+    @Autowired
+    private EmployeeColumnStore columnStore;
+
+    @Override
+    public List<SalaryAggregate> aggregateSalary(SalaryQuery query) {
+        return columnStore.aggregateSalary(query);
+    }
+}
@@ -1,30 +1,40 @@
 package com.example.learning.service.impl;
 
+import com.example.learning.bulk.BulkMode;
+import com.example.learning.bulk.EmployeeConditionWriter;
+import com.example.learning.bulk.EmployeeBulkWriter;
+import com.example.learning.cache.EmployeeCache;
+import com.example.learning.cache.EmployeeCountStore;
+import com.example.learning.cache.EmployeeVersion;
 import com.example.learning.entity.Employee;
-import com.example.learning.entity.EmployeeJson;
+import com.example.learning.event.EmployeeChangeEvent;
+import com.example.learning.export.EmployeeExporter;
+import com.example.learning.export.ExportFormat;
 import com.example.learning.mapper.EmployeeMapper;
+import com.example.learning.model.BulkWriteResult;
+import com.example.learning.model.CacheStatistics;
+import com.example.learning.model.CursorPage;
+import com.example.learning.model.DataVersion;
+import com.example.learning.model.PageCursor;
+import com.example.learning.model.SyncResult;
+import com.example.learning.search.NameSearchIndex;
 import com.example.learning.service.EmployeeService;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.example.learning.sync.EmployeeSyncPipeline;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
-import org.apache.commons.io.IOUtils;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.time.LocalDateTime;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class EmployeeServiceImpl implements EmployeeService {
@@ -35,19 +45,60 @@ public class EmployeeServiceImpl implements EmployeeService {
     private EmployeeMapper employeeMapper;
     
     @Autowired
-    private ObjectMapper objectMapper;
+    private EmployeeSyncPipeline syncPipeline;
     
+    @Autowired
+    private EmployeeCountStore countStore;
+    
+    @Autowired
+    private EmployeeCache employeeCache;
+    
+    @Autowired
+    private EmployeeVersion employeeVersion;
+    
+    @Autowired
+    private EmployeeExporter employeeExporter;
+    
+    @Autowired
+    private NameSearchIndex nameSearchIndex;
+    
+    @Autowired
+    private EmployeeBulkWriter bulkWriter;
+    
+    @Autowired
+    private EmployeeConditionWriter conditionWriter;
+    
+    /**
+     * 名字索引匹配的员工超过这个数量时，不再换成按主键查询，直接使用SQL条件
+     */
+    @Value("${employee.search.max-candidates:5000}")
+    private int maxSearchCandidates;
+    
+    /**
+     * 游标分页每页最多的记录数，请求更多时按这个数量返回
+     */
+    @Value("${employee.cursor.max-page-size:1000}")
+    private int maxCursorPageSize;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    /**
+     * 不走从库：从库上延迟的旧数据一旦进入缓存，会一直保留到过期
+     */
     @Override
     public Employee getEmployeeById(Integer userId) {
-        return employeeMapper.selectById(userId);
+        return employeeCache.get(userId, employeeMapper::selectById);
     }
     
     @Override
+    @Transactional(readOnly = true)
     public List<Employee> getAllEmployees() throws Exception {
         return employeeMapper.selectAll();
     }
     
     @Override
+    @Transactional(readOnly = true)
     public List<Employee> getEmployeesByLevel(Byte level) {
         Employee condition = new Employee();
         condition.setLevel(level);
@@ -55,11 +106,14 @@ public class EmployeeServiceImpl implements EmployeeService {
     }
     
     @Override
+    @Transactional(readOnly = true)
     public List<Employee> getEmployeesByCondition(Employee employee) {
+        resolveLastName(employee);
         return employeeMapper.selectByCondition(employee);
     }
     
     @Override
+    @Transactional(readOnly = true)
     public List<Employee> getActiveEmployees() {
         Employee condition = new Employee();
         condition.setIsActive(true);
@@ -67,143 +121,197 @@ public class EmployeeServiceImpl implements EmployeeService {
     }
     
     @Override
+    @Transactional(readOnly = true)
     public List<Employee> getEmployeesByLastName(String lastName) {
         Employee condition = new Employee();
         condition.setLastName(lastName);
+        resolveLastName(condition);
         return employeeMapper.selectByCondition(condition);
     }
     
     @Override
+    @Transactional
     public boolean addEmployee(Employee employee) {
-        return employeeMapper.insert(employee) > 0;
+        if (employeeMapper.insert(employee) == 0) {
+            return false;
+        }
+        eventPublisher.publishEvent(EmployeeChangeEvent.inserted(employee));
+        return true;
     }
     
     @Override
+    @Transactional
     public boolean updateEmployee(Employee employee) {
-        return employeeMapper.update(employee) > 0;
-    }
-    
-    @Override
-    public boolean deleteEmployee(Integer userId) {
-        return employeeMapper.deleteById(userId) > 0;
+        Employee before = selectForUpdate(employee.getUserId());
+        if (before == null || employeeMapper.update(employee) == 0) {
+            return false;
+        }
+        // 只更新了传入的非空字段，重新查询得到完整的修改后记录
+        Employee after = employeeMapper.selectById(employee.getUserId());
+        eventPublisher.publishEvent(EmployeeChangeEvent.updated(before, after));
+        return true;
     }
     
     @Override
     @Transactional
-    public boolean syncEmployee() {
-        try {
-            // 读取JSON文件
-            ClassPathResource resource = new ClassPathResource("employee.json");
-            logger.info("开始读取 employee.json 文件");
-
-            // 读取文件内容
-            String jsonContent = IOUtils.toString(resource.getInputStream(), StandardCharsets.UTF_8);
-            if (jsonContent == null || jsonContent.trim().isEmpty()) {
-                logger.error("employee.json 文件内容为空");
-                return false;
-            }
-
-            List<EmployeeJson> employeeJsons = objectMapper.readValue(
-                jsonContent,
-                new TypeReference<List<EmployeeJson>>() {}
-            );
-            
-            logger.info("成功解析JSON数据，共 {} 条记录", employeeJsons.size());
-            
-            // 转换为Employee实体
-            List<Employee> employees = employeeJsons.stream()
-                .map(this::convertToEmployee)
-                .collect(Collectors.toList());
-            
-            logger.info("开始批量插入数据");
-            
-            // 批量插入数据
-            for (Employee employee : employees) {
-                if (validateEmployee(employee)) {
-                    employeeMapper.insert(employee);
-                } else {
-                    logger.warn("跳过无效的员工数据: {}", employee);
-                }
-            }
-            
-            logger.info("数据同步完成");
-            return true;
-        } catch (IOException e) {
-            logger.error("同步数据时发生错误: {}", e.getMessage(), e);
+    public boolean deleteEmployee(Integer userId) {
+        Employee before = selectForUpdate(userId);
+        if (before == null || employeeMapper.deleteById(userId) == 0) {
             return false;
         }
+        eventPublisher.publishEvent(EmployeeChangeEvent.deleted(before));
+        return true;
     }
     
-    private Employee convertToEmployee(EmployeeJson json) {
-        if (json == null) {
-            logger.warn("收到空的 EmployeeJson 对象");
-            return null;
-        }
-        
-        logger.info("正在转换 EmployeeJson: {}", json);
-        
-        Employee employee = new Employee();
-        employee.setUserId(json.getUserId());
-        employee.setFirstName(json.getFirstName());
-        employee.setLastName(json.getLastName());
-        employee.setSalary(json.getSalary());
-        employee.setCurrency(json.getCurrency());
-        employee.setBirthdate(json.getBirthdateAsLocalDate());
-        employee.setIsActive(json.getIsActive());
-        employee.setLevel(json.getLevel());
-        
-        // 设置创建和更新时间
-        LocalDateTime now = LocalDateTime.now();
-        employee.setCreatedAt(now);
-        employee.setUpdatedAt(now);
-        
-        logger.debug("转换后的员工数据: {}", employee);
-        return employee;
-    }
-    
-    private boolean validateEmployee(Employee employee) {
-        if (employee == null) {
-            return false;
-        }
-        
-        boolean isValid = employee.getUserId() != null 
-            && StringUtils.hasText(employee.getFirstName())
-            && StringUtils.hasText(employee.getLastName())
-            && employee.getSalary() != null
-            && StringUtils.hasText(employee.getCurrency())
-            && employee.getBirthdate() != null
-            && employee.getIsActive() != null
-            && employee.getLevel() != null;
-            
-        if (!isValid) {
-            logger.warn("员工数据验证失败: userId={}, firstName={}, lastName={}, salary={}, currency={}, birthdate={}, isActive={}, level={}",
-                employee.getUserId(),
-                employee.getFirstName(),
-                employee.getLastName(),
-                employee.getSalary(),
-                employee.getCurrency(),
-                employee.getBirthdate(),
-                employee.getIsActive(),
-                employee.getLevel()
-            );
-        }
-        
-        return isValid;
+    /**
+     * 锁定并读出修改前的记录
+     * 不加锁时，两个并发修改可能读到同一个修改前记录，按级别和在职状态的统计会被重复增减而产生偏差；
+     * 加锁后同一个员工的修改按顺序执行，每个变更事件的修改前记录都是上一次修改提交后的结果
+     */
+    private Employee selectForUpdate(Integer userId) {
+        List<Employee> rows = employeeMapper.selectByIdsForUpdate(Collections.singletonList(userId));
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+    
+    @Override
+    public SyncResult syncEmployee() {
+        return syncPipeline.run(false, false);
     }
 
     @Override
+    public SyncResult syncEmployeeIncremental(boolean deleteMissing) {
+        return syncPipeline.run(true, deleteMissing);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<Employee> getEmployeesByPage(Employee condition, int pageNum, int pageSize) {
         // 计算偏移量
         int offset = (pageNum - 1) * pageSize;
         // 设置分页参数
         condition.setOffset(offset);
         condition.setLimit(pageSize);
+        resolveLastName(condition);
         return employeeMapper.selectByCondition(condition);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Employee> getEmployeesByCursor(Employee condition, String cursor, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("每页数量必须大于0: " + pageSize);
+        }
+        pageSize = Math.min(pageSize, maxCursorPageSize);
+        PageCursor position = StringUtils.hasText(cursor) ? PageCursor.decode(cursor) : null;
+        boolean backward = position != null && position.isBackward();
+        if (position != null) {
+            if (backward) {
+                condition.setBeforeId(position.getUserId());
+            } else {
+                condition.setAfterId(position.getUserId());
+            }
+        }
+        // 多查一条，用来判断翻页方向上是否还有数据
+        condition.setLimit(pageSize + 1);
+        resolveLastName(condition);
+        List<Employee> rows = employeeMapper.selectByCursor(condition);
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = new ArrayList<>(rows.subList(0, pageSize));
+        }
+        if (backward) {
+            // 向前翻页是倒序查询的，反转回从小到大的顺序
+            Collections.reverse(rows);
+        }
+
+        CursorPage<Employee> page = new CursorPage<>();
+        page.setItems(rows);
+        page.setPageSize(pageSize);
+        if (!rows.isEmpty()) {
+            Integer firstId = rows.get(0).getUserId();
+            Integer lastId = rows.get(rows.size() - 1).getUserId();
+            // 向后翻页时，还有更多数据才有下一页；向前翻页时，来源页就是下一页
+            if (backward || hasMore) {
+                page.setNextCursor(PageCursor.after(lastId).encode());
+            }
+            // 向前翻页时，还有更多数据才有上一页；从游标向后翻页时，来源页就是上一页
+            if (backward ? hasMore : position != null) {
+                page.setPrevCursor(PageCursor.before(firstId).encode());
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public void exportEmployees(Employee condition, ExportFormat format, OutputStream out) throws IOException {
+        resolveLastName(condition);
+        employeeExporter.export(condition, format, out);
+    }
+
+    @Override
+    public BulkWriteResult bulkWriteEmployees(InputStream in, BulkMode mode) throws IOException {
+        return bulkWriter.write(in, mode);
+    }
+
+    /**
+     * 不使用名字索引，见 EmployeeConditionWriter
+     */
+    @Override
+    public long updateEmployeesByCondition(Employee condition, Employee changes) {
+        return conditionWriter.update(condition, changes);
+    }
+
+    /**
+     * 不使用名字索引，见 EmployeeConditionWriter
+     */
+    @Override
+    public long deleteEmployeesByCondition(Employee condition) {
+        return conditionWriter.delete(condition);
+    }
+
+    @Override
+    public DataVersion getDataVersion() {
+        return employeeVersion.current();
+    }
+
+    @Override
+    public CacheStatistics getCacheStatistics() {
+        return employeeCache.getStatistics();
+    }
+
+    /**
+     * 不走从库：记录数的基准值加载之后按变更事件增减，从有延迟的从库加载会一直偏差下去
+     */
     @Override
     public long getTotalCount(Employee condition) {
-        return employeeMapper.countByCondition(condition);
+        resolveLastName(condition);
+        return countStore.count(condition);
+    }
+
+    /**
+     * 按姓氏子串搜索时，先用名字索引找出可能匹配的员工ID，让SQL在这些主键范围内再按姓氏过滤，
+     * 代替 LIKE '%..%' 全表扫描；索引的结果可能比数据库旧，所以不能单独作为查询条件
+     * 索引还没有构建好、使用前缀匹配、姓氏中有 LIKE 通配符或者匹配的员工太多时，保持原来的SQL条件不变
+     */
+    private void resolveLastName(Employee condition) {
+        if (condition.getUserIds() != null
+                || !StringUtils.hasText(condition.getLastName())
+                || Boolean.TRUE.equals(condition.getLastNamePrefix())
+                || hasLikeWildcard(condition.getLastName())
+                || !nameSearchIndex.isReady()) {
+            return;
+        }
+        List<Integer> userIds = nameSearchIndex.findByLastName(condition.getLastName(), maxSearchCandidates);
+        if (userIds != null) {
+            condition.setUserIds(userIds);
+        }
+    }
+
+    /**
+     * LIKE 中的 % 和 _ 是通配符，索引按字面匹配，会漏掉SQL能匹配到的员工
+     */
+    private static boolean hasLikeWildcard(String lastName) {
+        return lastName.indexOf('%') >= 0 || lastName.indexOf('_') >= 0;
     }
     
     @Override
@@ -211,10 +319,11 @@ public class EmployeeServiceImpl implements EmployeeService {
     public boolean truncateTable() {
         try {
             employeeMapper.truncateTable();
+            eventPublisher.publishEvent(EmployeeChangeEvent.truncated());
             return true;
         } catch (Exception e) {
             logger.error("清空员工表时发生错误: {}", e.getMessage(), e);
             return false;
         }
     }
-}
+}
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.example.learning.service.impl;
+
+import com.example.learning.metrics.IndexAdvisor;
+import com.example.learning.metrics.QueryShapes;
+import com.example.learning.metrics.SqlStatistics;
+import com.example.learning.model.QueryShape;
+import com.example.learning.model.QueryShapeAdvice;
+import com.example.learning.model.SlowQuery;
+import com.example.learning.model.SqlStatementStatistics;
+import com.example.learning.service.SqlStatisticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+public class SqlStatisticsServiceImpl implements SqlStatisticsService {
+
+    @Autowired
+    private SqlStatistics sqlStatistics;
+
+    @Autowired
+    private QueryShapes queryShapes;
+
+    @Autowired
+    private IndexAdvisor indexAdvisor;
+
+    @Override
+    public List<SqlStatementStatistics> getTopStatements(String sort, int limit) {
+        Comparator<SqlStatementStatistics> comparator;
+        if ("total".equalsIgnoreCase(sort)) {
+            comparator = Comparator.comparingDouble(SqlStatementStatistics::getTotalMillis);
+        } else if ("p99".equalsIgnoreCase(sort)) {
+            comparator = Comparator.comparingDouble(SqlStatementStatistics::getP99Millis);
+        } else {
+            throw new IllegalArgumentException("不支持的排序方式: " + sort);
+        }
+        return sqlStatistics.getStatements().stream()
+            .sorted(comparator.reversed())
+            .limit(Math.max(limit, 0))
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<SlowQuery> getSlowQueries() {
+        return sqlStatistics.getSlowQueries();
+    }
+
+    @Override
+    public List<QueryShape> getQueryShapes(int limit) {
+        return queryShapes.getShapes().stream()
+            .sorted(Comparator.comparingDouble(QueryShape::getTotalMillis).reversed())
+            .limit(Math.max(limit, 0))
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<QueryShapeAdvice> adviseIndexes(int limit) throws SQLException {
+        return indexAdvisor.advise(getQueryShapes(limit));
+    }
+
+    @Override
+    public void reset() {
+        sqlStatistics.reset();
+        queryShapes.reset();
+    }
+}
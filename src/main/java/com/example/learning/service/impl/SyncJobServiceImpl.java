@@ -0,0 +1,185 @@
+package com.example.learning.service.impl;
+
+import com.example.learning.model.SyncJobStatus;
+import com.example.learning.model.SyncResult;
+import com.example.learning.service.SyncJobService;
+import com.example.learning.sync.EmployeeSyncPipeline;
+import com.example.learning.sync.SyncJob;
+import com.example.learning.sync.SyncProgress;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+@Service
+public class SyncJobServiceImpl implements SyncJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyncJobServiceImpl.class);
+
+    /**
+     * 最多保留多少个任务的状态，超出后最早结束的任务会被丢弃
+     */
+    private static final int MAX_RETAINED_JOBS = 100;
+
+    @Autowired
+    private EmployeeSyncPipeline syncPipeline;
+
+    /**
+     * 同时执行的同步任务数
+     */
+    @Value("${employee.sync.job.threads:1}")
+    private int jobThreads;
+
+    /**
+     * 最多允许多少个任务排队，超出后提交会被拒绝
+     */
+    @Value("${employee.sync.job.queue-capacity:4}")
+    private int jobQueueCapacity;
+
+    /**
+     * 专用的同步任务线程池
+     * 和Tomcat的请求线程完全分开，同步再慢也不会占用处理HTTP请求的线程
+     */
+    private ThreadPoolTaskExecutor executor;
+
+    private final Map<String, SyncJob> jobs = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(jobThreads);
+        executor.setMaxPoolSize(jobThreads);
+        executor.setQueueCapacity(jobQueueCapacity);
+        executor.setThreadNamePrefix("sync-job-");
+        executor.initialize();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        synchronized (jobs) {
+            for (SyncJob job : jobs.values()) {
+                job.cancel();
+            }
+        }
+        executor.shutdown();
+    }
+
+    @Override
+    public SyncJobStatus submit(boolean incremental, boolean deleteMissing) {
+        SyncJob job = new SyncJob(UUID.randomUUID().toString(), incremental, deleteMissing);
+        synchronized (jobs) {
+            jobs.put(job.getJobId(), job);
+            evictFinishedJobs();
+        }
+        try {
+            executor.execute(() -> runJob(job));
+        } catch (RuntimeException e) {
+            synchronized (jobs) {
+                jobs.remove(job.getJobId());
+            }
+            throw e;
+        }
+        logger.info("已提交同步任务 {}，incremental={}, deleteMissing={}", job.getJobId(), incremental, deleteMissing);
+        return toStatus(job);
+    }
+
+    @Override
+    public SyncJobStatus getStatus(String jobId) {
+        SyncJob job = findJob(jobId);
+        return job != null ? toStatus(job) : null;
+    }
+
+    @Override
+    public SyncJobStatus cancel(String jobId) {
+        SyncJob job = findJob(jobId);
+        if (job == null) {
+            return null;
+        }
+        if (job.cancel()) {
+            logger.info("已请求取消同步任务 {}", jobId);
+        }
+        return toStatus(job);
+    }
+
+    private void runJob(SyncJob job) {
+        if (job.getProgress().isCancelled()) {
+            job.markFinished(SyncJob.State.CANCELLED, null, null);
+            return;
+        }
+        job.markStarted();
+        try {
+            SyncResult result = syncPipeline.run(job.isIncremental(), job.isDeleteMissing(), job.getProgress());
+            if (result.isAlreadyRunning()) {
+                job.markFinished(SyncJob.State.REJECTED, result, result.getMessage());
+            } else if (result.isCancelled()) {
+                job.markFinished(SyncJob.State.CANCELLED, result, null);
+            } else if (result.isSuccess()) {
+                job.markFinished(SyncJob.State.SUCCEEDED, result, null);
+            } else {
+                job.markFinished(SyncJob.State.FAILED, result, "同步失败，详细原因请查看日志");
+            }
+        } catch (RuntimeException e) {
+            logger.error("同步任务 {} 执行出错: {}", job.getJobId(), e.getMessage(), e);
+            job.markFinished(SyncJob.State.FAILED, null, e.getMessage());
+        }
+    }
+
+    private SyncJob findJob(String jobId) {
+        synchronized (jobs) {
+            return jobs.get(jobId);
+        }
+    }
+
+    /**
+     * 任务数量超出上限时，从最早提交的开始丢弃已经结束的任务
+     */
+    private void evictFinishedJobs() {
+        Iterator<SyncJob> iterator = jobs.values().iterator();
+        while (jobs.size() > MAX_RETAINED_JOBS && iterator.hasNext()) {
+            if (iterator.next().isFinished()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private SyncJobStatus toStatus(SyncJob job) {
+        SyncProgress progress = job.getProgress();
+        SyncJobStatus status = new SyncJobStatus();
+        status.setJobId(job.getJobId());
+        status.setState(job.getState().name());
+        status.setIncremental(job.isIncremental());
+        status.setDeleteMissing(job.isDeleteMissing());
+        status.setSubmittedAt(job.getSubmittedAt());
+        status.setStartedAt(job.getStartedAt());
+        status.setFinishedAt(job.getFinishedAt());
+        status.setRecordsParsed(progress.getParsed());
+        status.setRecordsProcessed(progress.getProcessed());
+        status.setRejected(progress.getRejected());
+        status.setResult(job.getResult());
+        status.setError(job.getError());
+
+        double elapsed = job.getElapsedSeconds();
+        if (elapsed > 0) {
+            status.setRecordsPerSecond(progress.getProcessed() / elapsed);
+        }
+        // 按已读取的字节数估算进度：剩余时间 = 已用时间 × 剩余字节 / 已读字节
+        long totalBytes = progress.getTotalBytes();
+        long bytesRead = progress.getBytesRead();
+        if (totalBytes > 0) {
+            status.setPercentComplete(Math.min(100.0, bytesRead * 100.0 / totalBytes));
+            if (!job.isFinished() && bytesRead > 0 && elapsed > 0) {
+                status.setEtaSeconds((long) Math.ceil(elapsed * (totalBytes - bytesRead) / bytesRead));
+            }
+        }
+        return status;
+    }
+}
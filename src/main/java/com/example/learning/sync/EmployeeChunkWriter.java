@@ -0,0 +1,140 @@
+package com.example.learning.sync;
+
+import com.example.learning.entity.Employee;
+import com.example.learning.event.EmployeeChangeEvent;
+import com.example.learning.mapper.EmployeeMapper;
+import com.example.learning.mapper.SyncCheckpointMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 同步数据块写入器
+ * 每个数据块在自己的事务中写入，并在同一个事务中记录断点
+ * 这样一个数据块要么连同断点一起提交，要么全部回滚，中断后可以准确地从断点继续
+ */
+@Component
+public class EmployeeChunkWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeChunkWriter.class);
+
+    /**
+     * 遇到死锁或锁等待超时时最多尝试的次数
+     * 多个写入线程并发执行 upsert 时，InnoDB 的间隙锁偶尔会导致死锁，重试即可
+     */
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Autowired
+    private EmployeeMapper employeeMapper;
+
+    @Autowired
+    private SyncCheckpointMapper checkpointMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 写入一个数据块并记录断点
+     * 
+     * @param runId 同步运行ID
+     * @param chunkSeq 数据块序号
+     * @param employees 已经校验通过的员工数据，可以为空（整个块都被丢弃时也要记录断点）
+     * @param incremental 是否增量写入
+     * @return 返回这个数据块的写入统计
+     */
+    public ChunkOutcome write(long runId, long chunkSeq, List<Employee> employees, boolean incremental) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    ChunkOutcome outcome = incremental ? upsertChanged(employees) : insertAll(employees);
+                    checkpointMapper.insertCheckpoint(runId, chunkSeq, employees.size());
+                    return outcome;
+                });
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                logger.warn("写入数据块 {} 时发生锁冲突，第 {} 次重试: {}", chunkSeq, attempt, e.getMessage());
+            }
+        }
+    }
+
+    private ChunkOutcome insertAll(List<Employee> employees) {
+        ChunkOutcome outcome = new ChunkOutcome();
+        if (!employees.isEmpty()) {
+            outcome.inserted = employeeMapper.insertBatch(employees);
+            publishChanged(employees);
+        }
+        return outcome;
+    }
+
+    /**
+     * 增量写入
+     * 先批量查出已有记录的内容摘要，只把新增和有变化的记录交给upsert
+     */
+    private ChunkOutcome upsertChanged(List<Employee> employees) {
+        ChunkOutcome outcome = new ChunkOutcome();
+        if (employees.isEmpty()) {
+            return outcome;
+        }
+
+        List<Integer> ids = new ArrayList<>(employees.size());
+        for (Employee employee : employees) {
+            ids.add(employee.getUserId());
+        }
+        Map<Integer, String> existingHashes = new HashMap<>();
+        for (Employee existing : employeeMapper.selectHashesByIds(ids)) {
+            existingHashes.put(existing.getUserId(), existing.getContentHash());
+        }
+
+        List<Employee> changed = new ArrayList<>();
+        for (Employee employee : employees) {
+            if (!existingHashes.containsKey(employee.getUserId())) {
+                outcome.inserted++;
+                changed.add(employee);
+            } else if (employee.getContentHash().equals(existingHashes.get(employee.getUserId()))) {
+                outcome.unchanged++;
+            } else {
+                outcome.updated++;
+                changed.add(employee);
+            }
+        }
+        if (!changed.isEmpty()) {
+            employeeMapper.upsertBatch(changed);
+            publishChanged(changed);
+        }
+        return outcome;
+    }
+
+    /**
+     * 在数据块的事务中发布变更事件，监听者会在事务提交之后才收到
+     */
+    private void publishChanged(List<Employee> employees) {
+        List<Integer> ids = new ArrayList<>(employees.size());
+        for (Employee employee : employees) {
+            ids.add(employee.getUserId());
+        }
+        eventPublisher.publishEvent(EmployeeChangeEvent.bulk(ids));
+    }
+
+    /**
+     * 一个数据块的写入统计
+     */
+    public static class ChunkOutcome {
+        long inserted;
+        long updated;
+        long unchanged;
+    }
+}
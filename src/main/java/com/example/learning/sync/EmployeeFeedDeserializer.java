@@ -0,0 +1,208 @@
+package com.example.learning.sync;
+
+import com.example.learning.entity.Employee;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+
+/**
+ * 数据源记录的反序列化器
+ * 直接把数据源中的一条记录（UserID、Firstname、"/Date(毫秒)/" 格式的生日……）读成Employee，
+ * 不再先创建EmployeeJson再复制一遍，同时完成校验
+ *
+ * 生日直接在解析器的字符缓冲区上解析，不创建中间字符串，时区在类加载时取一次
+ * 记录不完整或者字段格式不对时抛出 InvalidRecordException，由调用方计为无效记录；
+ * 抛出之前总是读完整条记录，包括格式不对的嵌套对象和数组，调用方可以接着读取下一条
+ * 异常中带有能读出的UserID，删除数据源中已经不存在的记录时，这个员工不会因为一次格式错误被删除
+ *
+ * 只用于读取数据源，不要注册到全局的ObjectMapper上，接口请求中的Employee仍然使用默认的字段名
+ */
+public class EmployeeFeedDeserializer extends StdDeserializer<Employee> {
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    private static final char[] DATE_PREFIX = "/Date(".toCharArray();
+
+    /**
+     * 和原来的 getBirthdateAsLocalDate 一样按系统时区换算日期
+     */
+    private static final ZoneRules ZONE_RULES = ZoneId.systemDefault().getRules();
+
+    /**
+     * 固定时差的时区（比如UTC）直接用缓存的时差计算，
+     * 有夏令时或者历史上调整过时差的时区需要按具体时刻查询
+     */
+    private static final long FIXED_OFFSET_MILLIS = ZONE_RULES.isFixedOffset()
+        ? ZONE_RULES.getOffset(Instant.EPOCH).getTotalSeconds() * 1000L : Long.MIN_VALUE;
+
+    public EmployeeFeedDeserializer() {
+        super(Employee.class);
+    }
+
+    @Override
+    public Employee deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if (!parser.isExpectedStartObjectToken()) {
+            parser.skipChildren();
+            throw new InvalidRecordException(parser, null, "记录不是JSON对象");
+        }
+        Employee employee = new Employee();
+        String invalidField = null;
+        for (String name = parser.nextFieldName(); name != null; name = parser.nextFieldName()) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            if (token.isStructStart()) {
+                // 整个跳过嵌套的对象和数组，否则下一次 nextFieldName 会读到里面的字段
+                parser.skipChildren();
+                if (isFeedField(name)) {
+                    invalidField = name;
+                }
+                continue;
+            }
+            switch (name) {
+                case "UserID":
+                    if (token == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == JsonParser.NumberType.INT) {
+                        employee.setUserId(parser.getIntValue());
+                    } else {
+                        invalidField = name;
+                    }
+                    break;
+                case "Firstname":
+                    employee.setFirstName(parser.getValueAsString());
+                    break;
+                case "Lastname":
+                    employee.setLastName(parser.getValueAsString());
+                    break;
+                case "Salary":
+                    if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+                        employee.setSalary(parser.getDecimalValue());
+                    } else {
+                        invalidField = name;
+                    }
+                    break;
+                case "Currency":
+                    employee.setCurrency(parser.getValueAsString());
+                    break;
+                case "Birthdate":
+                    employee.setBirthdate(token == JsonToken.VALUE_STRING ? parseDate(parser) : null);
+                    break;
+                case "Active":
+                    if (token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE) {
+                        employee.setIsActive(token == JsonToken.VALUE_TRUE);
+                    } else {
+                        invalidField = name;
+                    }
+                    break;
+                case "Level":
+                    // 超出int范围的数字调用 getIntValue 会抛出异常，先确认数字的类型
+                    if (token == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == JsonParser.NumberType.INT
+                            && parser.getIntValue() >= Byte.MIN_VALUE && parser.getIntValue() <= Byte.MAX_VALUE) {
+                        employee.setLevel((byte) parser.getIntValue());
+                    } else {
+                        invalidField = name;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (invalidField == null) {
+            invalidField = firstMissingField(employee);
+        }
+        if (invalidField != null) {
+            throw new InvalidRecordException(parser, employee.getUserId(), "字段 " + invalidField + " 缺失或格式不正确");
+        }
+        return employee;
+    }
+
+    private static boolean isFeedField(String name) {
+        switch (name) {
+            case "UserID":
+            case "Firstname":
+            case "Lastname":
+            case "Salary":
+            case "Currency":
+            case "Birthdate":
+            case "Active":
+            case "Level":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static String firstMissingField(Employee employee) {
+        if (employee.getUserId() == null) {
+            return "UserID";
+        }
+        if (!StringUtils.hasText(employee.getFirstName())) {
+            return "Firstname";
+        }
+        if (!StringUtils.hasText(employee.getLastName())) {
+            return "Lastname";
+        }
+        if (employee.getSalary() == null) {
+            return "Salary";
+        }
+        if (!StringUtils.hasText(employee.getCurrency())) {
+            return "Currency";
+        }
+        if (employee.getBirthdate() == null) {
+            return "Birthdate";
+        }
+        if (employee.getIsActive() == null) {
+            return "Active";
+        }
+        if (employee.getLevel() == null) {
+            return "Level";
+        }
+        return null;
+    }
+
+    /**
+     * 解析 "/Date(毫秒)/" 格式的日期，格式不对时返回null
+     */
+    private static LocalDate parseDate(JsonParser parser) throws IOException {
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int end = offset + parser.getTextLength();
+        int i = offset;
+        for (char c : DATE_PREFIX) {
+            if (i >= end || chars[i++] != c) {
+                return null;
+            }
+        }
+        boolean negative = i < end && chars[i] == '-';
+        if (negative) {
+            i++;
+        }
+        int digitsStart = i;
+        long millis = 0;
+        while (i < end && chars[i] >= '0' && chars[i] <= '9') {
+            // 超过18位数字的时间戳没有意义，也避免溢出
+            if (i - digitsStart >= 18) {
+                return null;
+            }
+            millis = millis * 10 + (chars[i++] - '0');
+        }
+        if (i == digitsStart || end - i != 2 || chars[i] != ')' || chars[i + 1] != '/') {
+            return null;
+        }
+        if (negative) {
+            millis = -millis;
+        }
+        long offsetMillis = FIXED_OFFSET_MILLIS != Long.MIN_VALUE
+            ? FIXED_OFFSET_MILLIS
+            : ZONE_RULES.getOffset(Instant.ofEpochMilli(millis)).getTotalSeconds() * 1000L;
+        return LocalDate.ofEpochDay(Math.floorDiv(millis + offsetMillis, MILLIS_PER_DAY));
+    }
+}
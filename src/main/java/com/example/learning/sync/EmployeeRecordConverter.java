@@ -0,0 +1,32 @@
+package com.example.learning.sync;
+
+import com.example.learning.entity.Employee;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 同步记录转换器
+ * 负责计算员工记录的内容摘要，解析和校验由 EmployeeFeedDeserializer 一次完成
+ * 没有任何状态，可以被多个同步线程同时调用
+ */
+@Component
+public class EmployeeRecordConverter {
+
+    /**
+     * 计算员工记录的内容摘要
+     * 只包含来自数据源的字段，创建时间、更新时间这类字段不参与计算
+     */
+    public String computeContentHash(Employee employee) {
+        String content = employee.getUserId()
+            + "|" + employee.getFirstName()
+            + "|" + employee.getLastName()
+            + "|" + employee.getSalary().stripTrailingZeros().toPlainString()
+            + "|" + employee.getCurrency()
+            + "|" + employee.getBirthdate()
+            + "|" + employee.getIsActive()
+            + "|" + employee.getLevel();
+        return DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,677 @@
+package com.example.learning.sync;
+
+import com.example.learning.entity.Employee;
+import com.example.learning.entity.SyncRun;
+import com.example.learning.event.EmployeeChangeEvent;
+import com.example.learning.mapper.EmployeeMapper;
+import com.example.learning.mapper.SyncCheckpointMapper;
+import com.example.learning.metrics.SyncMetrics;
+import com.example.learning.model.SyncResult;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.apache.commons.io.input.CountingInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 员工数据同步流水线
+ *
+ * 同步分为三个阶段，阶段之间通过有界队列连接：
+ * 1. 读取：在调用线程中流式读取数据源，每 batch-size 条记录组成一个数据块
+ *    JSON数组必须按顺序解析才能找到每条记录的边界，所以解析和校验（EmployeeFeedDeserializer）在这里完成，
+ *    一次遍历中解析、校验和转换的开销比以前先读成EmployeeJson再复制小，
+ *    但JSON数据源的解析速度受限于这一个线程；NDJSON按换行符就能切分，每行的解析交给转换线程并行完成，
+ *    数据源很大时优先使用NDJSON
+ * 2. 转换：多个线程并行地计算内容摘要（NDJSON的每行解析也在这里完成）
+ * 3. 写入：多个线程各自从连接池取连接，每个数据块一个事务，并在同一个事务中记录断点
+ *
+ * 队列是有界的，写入跟不上时读取会被阻塞，所以内存中最多只有几个数据块
+ * 同步中断后再次执行时，已经提交的数据块会被跳过，从断点继续
+ */
+@Component
+public class EmployeeSyncPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeSyncPipeline.class);
+
+    /**
+     * 读取数据源时的缓冲区大小
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 队列中的结束标记，收到后对应的线程就退出
+     */
+    private static final RawChunk END_OF_RAW = new RawChunk(-1, Collections.emptyList());
+    private static final ConvertedChunk END_OF_CONVERTED = new ConvertedChunk(-1, Collections.<Employee>emptyList());
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EmployeeMapper employeeMapper;
+
+    @Autowired
+    private SyncCheckpointMapper checkpointMapper;
+
+    @Autowired
+    private EmployeeRecordConverter recordConverter;
+
+    @Autowired
+    private EmployeeChunkWriter chunkWriter;
+
+    @Autowired
+    private SyncSourceFactory syncSourceFactory;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private SyncMetrics syncMetrics;
+
+    /**
+     * 每个数据块包含的记录数，也就是每个事务、每条批量INSERT写入的行数
+     */
+    @Value("${employee.sync.batch-size:500}")
+    private int chunkSize;
+
+    /**
+     * 转换线程数，小于等于0时使用CPU核数
+     */
+    @Value("${employee.sync.converter-threads:0}")
+    private int converterThreads;
+
+    /**
+     * 写入线程数，每个线程同时占用一个数据库连接，不要超过连接池大小
+     */
+    @Value("${employee.sync.writer-threads:4}")
+    private int writerThreads;
+
+    /**
+     * 阶段之间队列的容量（数据块个数）
+     */
+    @Value("${employee.sync.queue-capacity:16}")
+    private int queueCapacity;
+
+    /**
+     * 同一时间只允许一个同步在执行，否则两个同步会争抢同一个断点
+     */
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * 把数据源中的记录直接读成Employee的reader
+     * 使用ObjectMapper的副本注册反序列化器，不影响接口中Employee的JSON格式
+     */
+    private ObjectReader feedReader;
+
+    @PostConstruct
+    public void init() {
+        SimpleModule feedModule = new SimpleModule("employee-feed")
+            .addDeserializer(Employee.class, new EmployeeFeedDeserializer());
+        feedReader = objectMapper.copy().registerModule(feedModule).readerFor(Employee.class);
+    }
+
+    /**
+     * 执行一次同步
+     *
+     * @param incremental 为true时按内容摘要只写入有变化的记录，为false时全部直接插入
+     * @param deleteMissing 增量同步时是否删除数据源中已经不存在的记录
+     * @return 返回同步结果
+     */
+    public SyncResult run(boolean incremental, boolean deleteMissing) {
+        return run(incremental, deleteMissing, new SyncProgress());
+    }
+
+    /**
+     * 执行一次同步，并通过progress报告实时进度
+     *
+     * @param progress 用于读取进度和取消同步的对象
+     */
+    public SyncResult run(boolean incremental, boolean deleteMissing, SyncProgress progress) {
+        if (!running.compareAndSet(false, true)) {
+            logger.warn("已有同步正在执行，本次同步被忽略");
+            SyncResult result = new SyncResult();
+            result.setAlreadyRunning(true);
+            result.setMessage("已有同步正在执行");
+            return result;
+        }
+        long start = System.nanoTime();
+        try {
+            SyncResult result = doRun(incremental, deleteMissing, progress);
+            syncMetrics.record(incremental ? "INCREMENTAL" : "FULL", result, System.nanoTime() - start);
+            return result;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private SyncResult doRun(boolean incremental, boolean deleteMissing, SyncProgress progress) {
+        SyncResult result = new SyncResult();
+        SyncSource source;
+        SyncRun run;
+        try {
+            source = syncSourceFactory.getDefaultSource();
+            logger.info("开始读取数据源 {}，格式 {}", source.getLocation(), source.getFormat());
+            run = resumeOrStartRun(source, incremental ? "INCREMENTAL" : "FULL");
+        } catch (IOException e) {
+            logger.error("无法读取同步数据源: {}", e.getMessage(), e);
+            return result;
+        }
+        result.setRunId(run.getRunId());
+
+        Set<Long> committedChunks = new HashSet<>(checkpointMapper.selectCommittedChunks(run.getRunId()));
+        if (!committedChunks.isEmpty()) {
+            logger.info("从断点继续同步 {}，已提交 {} 个数据块", run.getRunId(), committedChunks.size());
+        }
+
+        IdSet seenIds = deleteMissing ? new IdSet() : null;
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        BlockingQueue<RawChunk> rawQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<ConvertedChunk> writeQueue = new ArrayBlockingQueue<>(queueCapacity);
+
+        int converters = converterThreads > 0 ? converterThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger activeConverters = new AtomicInteger(converters);
+        ExecutorService workers = Executors.newFixedThreadPool(converters + writerThreads,
+            new CustomizableThreadFactory("employee-sync-"));
+        for (int i = 0; i < converters; i++) {
+            workers.execute(() -> convertLoop(rawQueue, writeQueue, committedChunks, seenIds,
+                progress, failure, activeConverters));
+        }
+        for (int i = 0; i < writerThreads; i++) {
+            workers.execute(() -> writeLoop(writeQueue, run.getRunId(), incremental, progress, failure));
+        }
+
+        try {
+            readLoop(source, rawQueue, committedChunks, seenIds == null, progress, failure);
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            // 不管读取是否成功，都要通知转换线程结束，否则线程池无法关闭
+            for (int i = 0; i < converters; i++) {
+                putUninterruptibly(rawQueue, END_OF_RAW);
+            }
+            workers.shutdown();
+            awaitUninterruptibly(workers);
+        }
+        progress.copyTo(result);
+
+        if (progress.isCancelled()) {
+            logger.info("同步 {} 已取消，已提交的数据块会在下次同步时跳过: {}", run.getRunId(), result);
+            checkpointMapper.updateRunStatus(run.getRunId(), "FAILED");
+            return result;
+        }
+        if (failure.get() != null) {
+            Throwable cause = failure.get();
+            logger.error("同步数据时发生错误，已提交的数据块会在下次同步时跳过: {}", cause.getMessage(), cause);
+            checkpointMapper.updateRunStatus(run.getRunId(), "FAILED");
+            return result;
+        }
+        if (result.getParsed() == 0) {
+            logger.error("数据源 {} 中没有任何记录", source.getLocation());
+            checkpointMapper.updateRunStatus(run.getRunId(), "FAILED");
+            return result;
+        }
+
+        // 只有完整读完数据源之后才能确定哪些记录已经不存在
+        // 有读不出UserID的无效记录时，无法确定它对应的员工是否还在数据源中，这次不删除
+        if (seenIds != null && seenIds.isComplete()) {
+            result.setDeleted(deleteMissing(seenIds));
+        } else if (seenIds != null) {
+            logger.warn("数据源中有无法识别UserID的无效记录，本次同步不删除缺失的记录");
+        }
+
+        checkpointMapper.updateRunStatus(run.getRunId(), "COMPLETED");
+        checkpointMapper.deleteCheckpoints(run.getRunId());
+        result.setSuccess(true);
+        logger.info("数据同步完成: {}", result);
+        return result;
+    }
+
+    /**
+     * 找到同一个数据源上没有完成的同步继续执行，找不到就开始一次新的同步
+     */
+    private SyncRun resumeOrStartRun(SyncSource source, String mode) throws IOException {
+        String fingerprint = source.getFingerprint();
+        SyncRun run = checkpointMapper.selectUnfinishedRun(fingerprint, mode, chunkSize);
+        if (run != null) {
+            checkpointMapper.updateRunStatus(run.getRunId(), "RUNNING");
+            return run;
+        }
+        run = new SyncRun();
+        run.setSource(fingerprint);
+        run.setMode(mode);
+        run.setChunkSize(chunkSize);
+        run.setStatus("RUNNING");
+        checkpointMapper.insertRun(run);
+        return run;
+    }
+
+    /**
+     * 读取阶段
+     * 逐条读取数据源中的记录，每 chunkSize 条组成一个数据块放入队列
+     * 数据块序号只取决于记录在数据源中的位置，所以每次同步的分块都是一样的
+     *
+     * @param canSkipCommitted 已提交的数据块是否可以不解析直接跳过；需要收集ID时不能跳过
+     */
+    private void readLoop(SyncSource source, BlockingQueue<RawChunk> rawQueue, Set<Long> committedChunks,
+                          boolean canSkipCommitted, SyncProgress progress,
+                          AtomicReference<Throwable> failure) throws IOException, InterruptedException {
+        progress.setTotalBytes(source.getLength());
+        // 在解压之前统计字节数，这样进度和数据源的大小对得上
+        try (CountingInputStream counting = new CountingInputStream(source.openStream());
+             InputStream input = source.isGzip() ? new GZIPInputStream(counting, BUFFER_SIZE) : counting) {
+
+            ChunkBuilder chunks = new ChunkBuilder(rawQueue, committedChunks, canSkipCommitted,
+                progress, counting, chunkSize);
+            if (source.getFormat() == SyncFormat.NDJSON) {
+                readLines(input, chunks, progress, failure);
+            } else {
+                readJson(input, chunks, progress, failure);
+            }
+            if (!stopped(progress, failure)) {
+                chunks.finish();
+            }
+        }
+    }
+
+    /**
+     * 读取JSON格式的数据源
+     * 顶层是数组时逐个读取数组元素，否则按照一个接一个的顶层对象读取
+     */
+    private void readJson(InputStream input, ChunkBuilder chunks, SyncProgress progress,
+                          AtomicReference<Throwable> failure) throws IOException, InterruptedException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                token = parser.nextToken();
+            }
+            while (token != null && token != JsonToken.END_ARRAY && !stopped(progress, failure)) {
+                if (chunks.skipCurrent()) {
+                    parser.skipChildren();
+                    chunks.add(null);
+                } else {
+                    chunks.add(readRecord(parser));
+                }
+                token = parser.nextToken();
+            }
+        }
+    }
+
+    /**
+     * 读取一条记录，校验失败时记下能读出的UserID，解析器已经在这条记录的末尾，可以接着读取
+     */
+    private Object readRecord(JsonParser parser) throws IOException {
+        try {
+            return feedReader.readValue(parser);
+        } catch (InvalidRecordException e) {
+            return rejected(e);
+        }
+    }
+
+    private static RejectedRecord rejected(InvalidRecordException e) {
+        logger.warn("员工数据验证失败: userId={}, {}", e.getUserId(), e.getOriginalMessage());
+        return new RejectedRecord(e.getUserId());
+    }
+
+    /**
+     * 读取NDJSON格式的数据源
+     * 读取线程只负责按换行符切分，每行的JSON解析交给转换线程并行完成
+     */
+    private void readLines(InputStream input, ChunkBuilder chunks, SyncProgress progress,
+                           AtomicReference<Throwable> failure) throws IOException, InterruptedException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        int n;
+        while (!stopped(progress, failure) && (n = input.read(buffer)) != -1) {
+            int start = 0;
+            for (int i = 0; i < n; i++) {
+                if (buffer[i] == '\n') {
+                    line.write(buffer, start, i - start);
+                    addLine(line, chunks);
+                    line.reset();
+                    start = i + 1;
+                }
+            }
+            line.write(buffer, start, n - start);
+        }
+        if (line.size() > 0 && !stopped(progress, failure)) {
+            addLine(line, chunks);
+        }
+    }
+
+    /**
+     * 把一行加入数据块，空行会被忽略
+     */
+    private void addLine(ByteArrayOutputStream line, ChunkBuilder chunks) throws InterruptedException {
+        byte[] bytes = line.toByteArray();
+        int end = bytes.length;
+        if (end > 0 && bytes[end - 1] == '\r') {
+            end--;
+        }
+        boolean blank = true;
+        for (int i = 0; i < end && blank; i++) {
+            blank = Character.isWhitespace(bytes[i]);
+        }
+        if (blank) {
+            return;
+        }
+        if (chunks.skipCurrent()) {
+            chunks.add(null);
+        } else {
+            chunks.add(end == bytes.length ? bytes : Arrays.copyOf(bytes, end));
+        }
+    }
+
+    /**
+     * 转换阶段
+     * 已经提交过的数据块不再写入，只在需要删除缺失记录时收集其中的ID
+     */
+    private void convertLoop(BlockingQueue<RawChunk> rawQueue, BlockingQueue<ConvertedChunk> writeQueue,
+                             Set<Long> committedChunks, IdSet seenIds, SyncProgress progress,
+                             AtomicReference<Throwable> failure, AtomicInteger activeConverters) {
+        try {
+            while (true) {
+                RawChunk raw = rawQueue.take();
+                if (raw == END_OF_RAW) {
+                    break;
+                }
+                // 已经失败或取消时只消费队列，不再处理，让读取线程尽快结束
+                if (stopped(progress, failure)) {
+                    continue;
+                }
+                try {
+                    boolean committed = committedChunks.contains(raw.seq);
+                    List<Employee> valid = new ArrayList<>(raw.records.size());
+                    // 同一个数据块的记录共用一个时间，LocalDateTime不可变，可以共享
+                    LocalDateTime now = LocalDateTime.now();
+                    for (Object record : raw.records) {
+                        // 反序列化时已经校验过，无效的记录是RejectedRecord
+                        Object decoded = decode(record);
+                        if (decoded instanceof RejectedRecord) {
+                            if (!committed) {
+                                progress.rejected.increment();
+                            }
+                            if (seenIds != null) {
+                                seenIds.addRejected(((RejectedRecord) decoded).userId);
+                            }
+                            continue;
+                        }
+                        Employee employee = (Employee) decoded;
+                        if (seenIds != null) {
+                            seenIds.add(employee.getUserId());
+                        }
+                        if (!committed) {
+                            employee.setCreatedAt(now);
+                            employee.setUpdatedAt(now);
+                            employee.setContentHash(recordConverter.computeContentHash(employee));
+                            valid.add(employee);
+                        }
+                    }
+                    if (committed) {
+                        progress.resumedChunks.increment();
+                    } else {
+                        writeQueue.put(new ConvertedChunk(raw.seq, valid));
+                    }
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            failure.compareAndSet(null, e);
+            Thread.currentThread().interrupt();
+        } finally {
+            // 最后一个退出的转换线程负责通知写入线程结束
+            if (activeConverters.decrementAndGet() == 0) {
+                for (int i = 0; i < writerThreads; i++) {
+                    putUninterruptibly(writeQueue, END_OF_CONVERTED);
+                }
+            }
+        }
+    }
+
+    /**
+     * 取得读取阶段产生的记录，返回Employee或者RejectedRecord
+     * NDJSON的记录是一行原始字节，在这里解析；无法解析的行当作无效记录处理，不会中断同步
+     */
+    private Object decode(Object record) {
+        if (!(record instanceof byte[])) {
+            return record;
+        }
+        try {
+            return feedReader.readValue((byte[]) record);
+        } catch (InvalidRecordException e) {
+            return rejected(e);
+        } catch (IOException e) {
+            logger.warn("无法解析的记录: {}", e.getMessage());
+            return new RejectedRecord(null);
+        }
+    }
+
+    /**
+     * 写入阶段
+     * 每个数据块一个事务，写入成功后才累计到统计数字中
+     */
+    private void writeLoop(BlockingQueue<ConvertedChunk> writeQueue, long runId, boolean incremental,
+                           SyncProgress progress, AtomicReference<Throwable> failure) {
+        try {
+            while (true) {
+                ConvertedChunk chunk = writeQueue.take();
+                if (chunk == END_OF_CONVERTED) {
+                    break;
+                }
+                if (stopped(progress, failure)) {
+                    continue;
+                }
+                try {
+                    EmployeeChunkWriter.ChunkOutcome outcome =
+                        chunkWriter.write(runId, chunk.seq, chunk.employees, incremental);
+                    progress.inserted.add(outcome.inserted);
+                    progress.updated.add(outcome.updated);
+                    progress.unchanged.add(outcome.unchanged);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            failure.compareAndSet(null, e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 删除数据源中已经不存在的记录
+     * 按主键顺序分批遍历表中的ID，不会一次性把所有ID加载到内存
+     *
+     * @param seenIds 数据源中出现过的ID
+     * @return 返回删除的记录数
+     */
+    private long deleteMissing(IdSet seenIds) {
+        long deleted = 0;
+        Integer afterId = null;
+        List<Integer> ids;
+        do {
+            ids = employeeMapper.selectIdsAfter(afterId, chunkSize);
+            List<Integer> missing = new ArrayList<>();
+            for (Integer id : ids) {
+                if (!seenIds.contains(id)) {
+                    missing.add(id);
+                }
+            }
+            if (!missing.isEmpty()) {
+                deleted += employeeMapper.deleteByIds(missing);
+                eventPublisher.publishEvent(EmployeeChangeEvent.bulk(missing));
+            }
+            if (!ids.isEmpty()) {
+                afterId = ids.get(ids.size() - 1);
+            }
+        } while (ids.size() == chunkSize);
+        return deleted;
+    }
+
+    private static boolean stopped(SyncProgress progress, AtomicReference<Throwable> failure) {
+        return progress.isCancelled() || failure.get() != null;
+    }
+
+    private static <T> void putUninterruptibly(BlockingQueue<T> queue, T item) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(item);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitUninterruptibly(ExecutorService executor) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 校验失败的记录，保留能读出的UserID
+     * 删除缺失的记录时，这些员工仍然算作在数据源中，不会因为一次格式错误被删除
+     */
+    private static class RejectedRecord {
+        final Integer userId;
+
+        RejectedRecord(Integer userId) {
+            this.userId = userId;
+        }
+    }
+
+    /**
+     * 读取阶段产生的数据块，里面是还没有转换的原始记录
+     * JSON格式的记录是Employee或RejectedRecord，NDJSON格式的记录是一行原始字节
+     */
+    private static class RawChunk {
+        final long seq;
+        final List<Object> records;
+
+        RawChunk(long seq, List<Object> records) {
+            this.seq = seq;
+            this.records = records;
+        }
+    }
+
+    /**
+     * 转换阶段产生的数据块，里面是已经校验通过的员工数据
+     */
+    private static class ConvertedChunk {
+        final long seq;
+        final List<Employee> employees;
+
+        ConvertedChunk(long seq, List<Employee> employees) {
+            this.seq = seq;
+            this.employees = employees;
+        }
+    }
+
+    /**
+     * 把读取到的记录组装成数据块
+     * 已经提交过的数据块在可以跳过时不保留任何记录，只推进数据块序号
+     */
+    private static class ChunkBuilder {
+        private final BlockingQueue<RawChunk> queue;
+        private final Set<Long> committedChunks;
+        private final boolean canSkipCommitted;
+        private final SyncProgress progress;
+        private final CountingInputStream counting;
+        private final int chunkSize;
+
+        private long chunkSeq;
+        private int recordsInChunk;
+        private List<Object> records;
+
+        ChunkBuilder(BlockingQueue<RawChunk> queue, Set<Long> committedChunks, boolean canSkipCommitted,
+                     SyncProgress progress, CountingInputStream counting, int chunkSize) {
+            this.queue = queue;
+            this.committedChunks = committedChunks;
+            this.canSkipCommitted = canSkipCommitted;
+            this.progress = progress;
+            this.counting = counting;
+            this.chunkSize = chunkSize;
+            this.records = new ArrayList<>(chunkSize);
+        }
+
+        /**
+         * 当前数据块是否可以直接跳过，可以跳过时调用方不需要解析记录
+         */
+        boolean skipCurrent() {
+            return canSkipCommitted && committedChunks.contains(chunkSeq);
+        }
+
+        void add(Object record) throws InterruptedException {
+            if (!skipCurrent()) {
+                records.add(record);
+            }
+            progress.parsed.increment();
+            if (++recordsInChunk == chunkSize) {
+                flush();
+            }
+        }
+
+        void finish() throws InterruptedException {
+            if (recordsInChunk > 0) {
+                flush();
+            }
+        }
+
+        private void flush() throws InterruptedException {
+            progress.setBytesRead(counting.getByteCount());
+            if (skipCurrent()) {
+                progress.resumedChunks.increment();
+            } else {
+                queue.put(new RawChunk(chunkSeq, records));
+                records = new ArrayList<>(chunkSize);
+            }
+            chunkSeq++;
+            recordsInChunk = 0;
+        }
+    }
+}
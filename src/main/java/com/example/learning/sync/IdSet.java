@@ -0,0 +1,52 @@
+package com.example.learning.sync;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 整数ID集合
+ * 非负ID用BitSet存储，每个ID只占一位，几百万个ID也只需要几百KB内存
+ * 负数ID很少见，用普通的HashSet兜底
+ * 同步时会被多个线程同时写入，所以方法都加了同步
+ *
+ * 校验失败的记录也会加入集合：数据源中仍然有这个员工，只是这次的数据有问题，不能因此删除它；
+ * 读不出UserID的无效记录使集合变得不完整，这时不能用它判断哪些员工已经不在数据源中
+ */
+class IdSet {
+    private final BitSet nonNegative = new BitSet();
+    private final Set<Integer> negative = new HashSet<>();
+    private boolean complete = true;
+
+    synchronized void add(int id) {
+        if (id >= 0) {
+            nonNegative.set(id);
+        } else {
+            negative.add(id);
+        }
+    }
+
+    /**
+     * 加入校验失败的记录的ID
+     *
+     * @param id 能读出的UserID，读不出时为null
+     */
+    synchronized void addRejected(Integer id) {
+        if (id != null) {
+            add(id);
+        } else {
+            complete = false;
+        }
+    }
+
+    /**
+     * 数据源中的每条记录是否都已经加入集合
+     */
+    synchronized boolean isComplete() {
+        return complete;
+    }
+
+    synchronized boolean contains(int id) {
+        return id >= 0 ? nonNegative.get(id) : negative.contains(id);
+    }
+}
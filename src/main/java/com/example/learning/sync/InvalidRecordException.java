@@ -0,0 +1,25 @@
+package com.example.learning.sync;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonMappingException;
+
+/**
+ * 数据源中的记录校验失败
+ * 抛出时整条记录已经读完，读取同一个数据源的解析器可以继续读取下一条记录
+ */
+public class InvalidRecordException extends JsonMappingException {
+
+    /**
+     * 记录中的UserID，没有或者格式不对时为null
+     */
+    private final Integer userId;
+
+    public InvalidRecordException(JsonParser parser, Integer userId, String message) {
+        super(parser, message);
+        this.userId = userId;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.learning.sync;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 基于内存映射的文件输入流
+ * 一个MappedByteBuffer最多只能映射2GB，所以文件按窗口依次映射，读完一个窗口再映射下一个
+ */
+class MappedFileInputStream extends InputStream {
+
+    /**
+     * 每个映射窗口的大小
+     */
+    private static final long WINDOW_SIZE = 256L * 1024 * 1024;
+
+    private final FileChannel channel;
+
+    private final long size;
+
+    private long windowStart;
+
+    private MappedByteBuffer buffer;
+
+    MappedFileInputStream(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        mapWindow(0);
+    }
+
+    private void mapWindow(long start) throws IOException {
+        windowStart = start;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, size - start));
+    }
+
+    /**
+     * 当前窗口读完时映射下一个窗口
+     * 
+     * @return 文件已经读完时返回false
+     */
+    private boolean ensureRemaining() throws IOException {
+        if (buffer.hasRemaining()) {
+            return true;
+        }
+        long next = windowStart + buffer.capacity();
+        if (next >= size) {
+            return false;
+        }
+        mapWindow(next);
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureRemaining()) {
+            return -1;
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureRemaining()) {
+            return -1;
+        }
+        int n = Math.min(len, buffer.remaining());
+        buffer.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public int available() {
+        long remaining = size - (windowStart + buffer.position());
+        return (int) Math.min(Integer.MAX_VALUE, remaining);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
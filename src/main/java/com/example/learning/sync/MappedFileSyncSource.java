@@ -0,0 +1,52 @@
+package com.example.learning.sync;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 通过内存映射读取的本地文件数据源
+ * 大文件直接映射到内存，由操作系统按页读入，省去了内核缓冲区到Java堆的拷贝
+ */
+public class MappedFileSyncSource implements SyncSource {
+
+    private final Path path;
+
+    private final SyncFormat format;
+
+    public MappedFileSyncSource(Path path, SyncFormat format) {
+        this.path = path;
+        this.format = format;
+    }
+
+    @Override
+    public String getLocation() {
+        return "file [" + path.toAbsolutePath() + "] (mmap)";
+    }
+
+    @Override
+    public String getFingerprint() throws IOException {
+        return path.toAbsolutePath() + ":" + Files.size(path) + ":" + Files.getLastModifiedTime(path).toMillis();
+    }
+
+    @Override
+    public long getLength() throws IOException {
+        return Files.size(path);
+    }
+
+    @Override
+    public InputStream openStream() throws IOException {
+        return new MappedFileInputStream(path);
+    }
+
+    @Override
+    public boolean isGzip() {
+        return false;
+    }
+
+    @Override
+    public SyncFormat getFormat() {
+        return format;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.learning.sync;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 基于Spring Resource的数据源
+ * 用于classpath中的文件、gzip压缩文件以及不需要内存映射的小文件
+ */
+public class ResourceSyncSource implements SyncSource {
+
+    private final Resource resource;
+
+    private final boolean gzip;
+
+    private final SyncFormat format;
+
+    public ResourceSyncSource(Resource resource, boolean gzip, SyncFormat format) {
+        this.resource = resource;
+        this.gzip = gzip;
+        this.format = format;
+    }
+
+    @Override
+    public String getLocation() {
+        return resource.getDescription();
+    }
+
+    @Override
+    public String getFingerprint() throws IOException {
+        return resource.getDescription() + ":" + resource.contentLength() + ":" + resource.lastModified();
+    }
+
+    @Override
+    public long getLength() throws IOException {
+        return resource.contentLength();
+    }
+
+    @Override
+    public InputStream openStream() throws IOException {
+        return resource.getInputStream();
+    }
+
+    @Override
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    @Override
+    public SyncFormat getFormat() {
+        return format;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.learning.sync;
+
+/**
+ * 数据源格式
+ */
+public enum SyncFormat {
+    /**
+     * JSON数组，或者一个接一个排列的JSON对象
+     */
+    JSON,
+    /**
+     * 每行一个员工的JSON对象（NDJSON / JSON Lines）
+     * 可以按行切分，解析工作交给多个转换线程并行完成
+     */
+    NDJSON
+}
@@ -0,0 +1,139 @@
+package com.example.learning.sync;
+
+import com.example.learning.model.SyncResult;
+
+import java.time.LocalDateTime;
+
+/**
+ * 同步任务
+ * 一次通过任务接口提交的同步，在后台线程中执行，记录状态、进度和最终结果
+ */
+public class SyncJob {
+
+    /**
+     * 任务状态
+     */
+    public enum State {
+        /** 已提交，正在排队 */
+        QUEUED,
+        /** 正在执行 */
+        RUNNING,
+        /** 执行成功 */
+        SUCCEEDED,
+        /** 执行失败 */
+        FAILED,
+        /** 已取消 */
+        CANCELLED,
+        /** 开始执行时已有其他同步正在执行，没有执行 */
+        REJECTED
+    }
+
+    private final String jobId;
+
+    private final boolean incremental;
+
+    private final boolean deleteMissing;
+
+    private final SyncProgress progress = new SyncProgress();
+
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+
+    private volatile State state = State.QUEUED;
+
+    private volatile LocalDateTime startedAt;
+
+    private volatile long startedAtNanos;
+
+    private volatile LocalDateTime finishedAt;
+
+    private volatile SyncResult result;
+
+    private volatile String error;
+
+    public SyncJob(String jobId, boolean incremental, boolean deleteMissing) {
+        this.jobId = jobId;
+        this.incremental = incremental;
+        this.deleteMissing = deleteMissing;
+    }
+
+    public void markStarted() {
+        startedAt = LocalDateTime.now();
+        startedAtNanos = System.nanoTime();
+        state = State.RUNNING;
+    }
+
+    public void markFinished(State finalState, SyncResult result, String error) {
+        this.result = result;
+        this.error = error;
+        this.finishedAt = LocalDateTime.now();
+        this.state = finalState;
+    }
+
+    /**
+     * 请求取消任务
+     * 
+     * @return 任务已经结束时返回false
+     */
+    public boolean cancel() {
+        if (isFinished()) {
+            return false;
+        }
+        progress.cancel();
+        return true;
+    }
+
+    public boolean isFinished() {
+        return state == State.SUCCEEDED || state == State.FAILED || state == State.CANCELLED
+            || state == State.REJECTED;
+    }
+
+    /**
+     * 任务已经执行的秒数，还没开始时为0
+     */
+    public double getElapsedSeconds() {
+        if (startedAt == null) {
+            return 0;
+        }
+        return (System.nanoTime() - startedAtNanos) / 1_000_000_000.0;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public boolean isDeleteMissing() {
+        return deleteMissing;
+    }
+
+    public SyncProgress getProgress() {
+        return progress;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public SyncResult getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.learning.sync;
+
+import com.example.learning.model.SyncResult;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 同步进度
+ * 同步流水线的各个线程在这里累计统计数字，外部可以随时读取实时进度，也可以通过它取消同步
+ */
+public class SyncProgress {
+
+    final LongAdder parsed = new LongAdder();
+    final LongAdder inserted = new LongAdder();
+    final LongAdder updated = new LongAdder();
+    final LongAdder unchanged = new LongAdder();
+    final LongAdder rejected = new LongAdder();
+    final LongAdder resumedChunks = new LongAdder();
+
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    /**
+     * 已经读取的字节数和数据源总字节数，用于估算完成比例，总字节数未知时为-1
+     */
+    private volatile long bytesRead;
+    private volatile long totalBytes = -1;
+
+    /**
+     * 请求取消同步，已经提交的数据块会保留，下次同步从断点继续
+     */
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    public long getParsed() {
+        return parsed.sum();
+    }
+
+    /**
+     * 已经处理完的记录数：写入成功（包括未变化跳过的）和校验失败被丢弃的记录
+     */
+    public long getProcessed() {
+        return inserted.sum() + updated.sum() + unchanged.sum() + rejected.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    void setBytesRead(long bytesRead) {
+        this.bytesRead = bytesRead;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    void copyTo(SyncResult result) {
+        result.setParsed(parsed.sum());
+        result.setInserted(inserted.sum());
+        result.setUpdated(updated.sum());
+        result.setUnchanged(unchanged.sum());
+        result.setRejected(rejected.sum());
+        result.setResumedChunks(resumedChunks.sum());
+        result.setCancelled(isCancelled());
+    }
+}
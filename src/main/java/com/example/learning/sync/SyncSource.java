@@ -0,0 +1,39 @@
+package com.example.learning.sync;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 同步数据源
+ * 描述从哪里读取员工数据、数据是什么格式、是否经过gzip压缩
+ */
+public interface SyncSource {
+
+    /**
+     * 数据源的位置，用于日志输出
+     */
+    String getLocation();
+
+    /**
+     * 数据源的标识，包含位置、大小和修改时间
+     * 数据源内容变化后标识也会变化，旧的断点就不会被误用
+     */
+    String getFingerprint() throws IOException;
+
+    /**
+     * 数据源的字节数（压缩文件为压缩后的大小），未知时返回-1
+     */
+    long getLength() throws IOException;
+
+    /**
+     * 打开数据源的原始字节流，压缩文件返回的是压缩后的字节
+     */
+    InputStream openStream() throws IOException;
+
+    /**
+     * 是否是gzip压缩文件
+     */
+    boolean isGzip();
+
+    SyncFormat getFormat();
+}
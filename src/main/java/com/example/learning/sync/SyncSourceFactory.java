@@ -0,0 +1,68 @@
+package com.example.learning.sync;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * 同步数据源工厂
+ * 根据配置的位置决定如何读取数据：
+ * - classpath: 开头的从classpath读取（默认是jar包中的employee.json）
+ * - 其他位置按本地文件路径处理，超过 mmap-threshold 的未压缩文件通过内存映射读取
+ * - 以 .gz 结尾的文件边读边解压
+ * - 以 .ndjson 或 .jsonl 结尾（可以再加 .gz）的文件按每行一条记录读取
+ */
+@Component
+public class SyncSourceFactory {
+
+    private static final String CLASSPATH_PREFIX = "classpath:";
+
+    private static final String FILE_PREFIX = "file:";
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    /**
+     * 默认的数据源位置，可以改为本地文件路径，更新数据时不需要重新部署
+     */
+    @Value("${employee.sync.source:classpath:employee.json}")
+    private String defaultLocation;
+
+    /**
+     * 达到这个字节数的本地文件使用内存映射读取
+     */
+    @Value("${employee.sync.mmap-threshold-bytes:67108864}")
+    private long mmapThreshold;
+
+    public SyncSource getDefaultSource() throws IOException {
+        return create(defaultLocation);
+    }
+
+    public SyncSource create(String location) throws IOException {
+        String lowerCase = location.toLowerCase(Locale.ROOT);
+        boolean gzip = lowerCase.endsWith(".gz");
+        String name = gzip ? lowerCase.substring(0, lowerCase.length() - ".gz".length()) : lowerCase;
+        SyncFormat format = name.endsWith(".ndjson") || name.endsWith(".jsonl") ? SyncFormat.NDJSON : SyncFormat.JSON;
+
+        if (location.startsWith(CLASSPATH_PREFIX)) {
+            return new ResourceSyncSource(resourceLoader.getResource(location), gzip, format);
+        }
+
+        Path path = Paths.get(location.startsWith(FILE_PREFIX) ? location.substring(FILE_PREFIX.length()) : location);
+        if (!Files.isRegularFile(path)) {
+            throw new IOException("同步数据源不存在: " + path.toAbsolutePath());
+        }
+        if (!gzip && Files.size(path) >= mmapThreshold) {
+            return new MappedFileSyncSource(path, format);
+        }
+        return new ResourceSyncSource(new FileSystemResource(path), gzip, format);
+    }
+}
@@ -0,0 +1,19 @@
+-- 初始结构：引入数据库迁移之前的员工表，和最初的 employee.sql 相同
+-- 已有的数据库不会执行这个脚本，由 spring.flyway.baseline-on-migrate 直接记为版本1，
+-- 之后的表结构变化都放在新的迁移脚本中，已有的数据库才能升级到最新结构
+CREATE TABLE employees (
+    user_id INT PRIMARY KEY,
+    first_name NVARCHAR(50) NOT NULL,
+    last_name NVARCHAR(50) NOT NULL,
+    salary DECIMAL(10, 2) NOT NULL,
+    currency CHAR(3) NOT NULL,
+    birthdate DATETIME NOT NULL,
+    is_active BIT NOT NULL,
+    level TINYINT NOT NULL,
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_employees_lastname ON employees(last_name);
+CREATE INDEX idx_employees_active ON employees(is_active);
+CREATE INDEX idx_employees_level ON employees(level);
@@ -0,0 +1,32 @@
+-- 增量同步：内容摘要列、同步运行记录和同步断点
+
+-- 同步时用来判断记录是否有变化的内容摘要
+-- 按 employee.sql 以前的说明手动加过这一列的表跳过，MySQL的 ADD COLUMN 不支持 IF NOT EXISTS
+SET @ddl = IF(
+    (SELECT COUNT(*) FROM information_schema.columns
+     WHERE table_schema = DATABASE() AND table_name = 'employees' AND column_name = 'content_hash') = 0,
+    'ALTER TABLE employees ADD COLUMN content_hash CHAR(32) NULL',
+    'DO 0');
+PREPARE add_content_hash FROM @ddl;
+EXECUTE add_content_hash;
+DEALLOCATE PREPARE add_content_hash;
+
+-- 同步运行记录，用于中断后从断点继续
+CREATE TABLE IF NOT EXISTS sync_run (
+    run_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    source VARCHAR(512) NOT NULL,
+    mode VARCHAR(20) NOT NULL,
+    chunk_size INT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    started_at DATETIME,
+    finished_at DATETIME
+);
+
+-- 同步断点：每个已经提交的数据块一条记录，和数据块在同一个事务中写入
+CREATE TABLE IF NOT EXISTS sync_checkpoint (
+    run_id BIGINT NOT NULL,
+    chunk_seq BIGINT NOT NULL,
+    record_count INT NOT NULL,
+    committed_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (run_id, chunk_seq)
+);
@@ -0,0 +1,15 @@
+-- 组合索引，来自 /api/admin/sql/shapes/advice 对常用条件组合的分析
+
+-- 按级别和在职状态一起过滤（列表、记录数、游标翻页）时只能用上单列索引，再逐行过滤另一个条件；
+-- (level, is_active) 同时满足只按级别过滤，单列的级别索引不再需要，
+-- 按级别和在职状态分组统计（计数缓存的加载）也可以只读这个索引，不需要临时表
+ALTER TABLE employees
+    DROP INDEX idx_employees_level,
+    ADD INDEX idx_employees_level_active (level, is_active);
+
+-- 姓氏前缀匹配加上在职状态时，在索引中完成两个条件的过滤；
+-- 只查询 userId、lastName、isActive（fields 参数）时只读这个索引即可
+-- 已经手动改成组合索引的表重建一次，结果相同
+ALTER TABLE employees
+    DROP INDEX idx_employees_lastname,
+    ADD INDEX idx_employees_lastname (last_name, is_active);
@@ -1,3 +1,7 @@
+-- 当前的完整表结构，测试时用它初始化内存数据库
+-- 应用启动时由Flyway按 db/migration 中的脚本升级数据库，修改表结构时需要同时添加新的迁移脚本
+-- content_hash 列和同步表见 V2__incremental_sync.sql，组合索引见 V3__composite_indexes.sql
+
 CREATE TABLE employees (
     user_id INT PRIMARY KEY,
     first_name NVARCHAR(50) NOT NULL,
@@ -8,10 +12,33 @@ CREATE TABLE employees (
     is_active BIT NOT NULL,
     level TINYINT NOT NULL,
     created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
-    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    content_hash CHAR(32) NULL
 );
 
 -- 添加索引以提高查询性能
-CREATE INDEX idx_employees_lastname ON employees(last_name);
+-- 姓氏索引带上在职状态，InnoDB的二级索引本身包含主键，
+-- 只查询 userId、lastName、isActive 的列表（fields 参数）可以只读这个索引完成
+CREATE INDEX idx_employees_lastname ON employees(last_name, is_active);
 CREATE INDEX idx_employees_active ON employees(is_active);
-CREATE INDEX idx_employees_level ON employees(level);
\ No newline at end of file
+CREATE INDEX idx_employees_level_active ON employees(level, is_active);
+
+-- 同步运行记录，用于中断后从断点继续
+CREATE TABLE sync_run (
+    run_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    source VARCHAR(512) NOT NULL,
+    mode VARCHAR(20) NOT NULL,
+    chunk_size INT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    started_at DATETIME,
+    finished_at DATETIME
+);
+
+-- 同步断点：每个已经提交的数据块一条记录，和数据块在同一个事务中写入
+CREATE TABLE sync_checkpoint (
+    run_id BIGINT NOT NULL,
+    chunk_seq BIGINT NOT NULL,
+    record_count INT NOT NULL,
+    committed_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (run_id, chunk_seq)
+);
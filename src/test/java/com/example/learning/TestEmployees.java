@@ -0,0 +1,40 @@
+package com.example.learning;
+
+import com.example.learning.entity.Employee;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 测试用的员工数据
+ */
+public final class TestEmployees {
+
+    private TestEmployees() {
+    }
+
+    /**
+     * 生成一个所有必填字段都有值的员工
+     */
+    public static Employee employee(int userId, String lastName) {
+        Employee employee = new Employee();
+        employee.setUserId(userId);
+        employee.setFirstName("First" + userId);
+        employee.setLastName(lastName);
+        employee.setSalary(new BigDecimal("5000.00"));
+        employee.setCurrency("CNY");
+        employee.setBirthdate(LocalDate.of(1990, 1, 1));
+        employee.setIsActive(true);
+        employee.setLevel((byte) (userId % 13));
+        return employee;
+    }
+
+    /**
+     * 同步数据源中的一条记录（NDJSON的一行）
+     */
+    public static String feedRecord(int userId, String lastName, String salary) {
+        return "{\"UserID\":" + userId + ",\"Firstname\":\"First" + userId + "\",\"Lastname\":\"" + lastName
+            + "\",\"Salary\":" + salary + ",\"Currency\":\"CNY\",\"Birthdate\":\"/Date(631152000000)/\""
+            + ",\"Active\":true,\"Level\":" + (userId % 13) + "}";
+    }
+}
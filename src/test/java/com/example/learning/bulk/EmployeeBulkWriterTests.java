@@ -0,0 +1,104 @@
+package com.example.learning.bulk;
+
+import com.example.learning.mapper.EmployeeMapper;
+import com.example.learning.model.BulkRowError;
+import com.example.learning.model.BulkWriteResult;
+import com.example.learning.service.EmployeeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static com.example.learning.TestEmployees.employee;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 批量写入：一条记录失败不影响同一个数据块中的其他记录
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class EmployeeBulkWriterTests {
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeMapper employeeMapper;
+
+    @BeforeEach
+    void setUp() {
+        employeeService.truncateTable();
+        employeeService.addEmployee(employee(1, "Existing"));
+    }
+
+    @Test
+    void failedRecordsAreReportedAndTheRestAreWritten() throws IOException {
+        String body = "["
+            + record(10, "\"salary\": 5000.00") + ","
+            // 已经存在
+            + record(1, "\"salary\": 5000.00") + ","
+            // 缺少必填字段
+            + "{\"userId\": 12, \"firstName\": \"No\", \"salary\": 5000.00}" + ","
+            // 超出 DECIMAL(10, 2)，整个数据块在数据库中失败，改为逐条写入
+            + record(13, "\"salary\": 1000000000000.00") + ","
+            // 请求中重复
+            + record(10, "\"salary\": 6000.00") + ","
+            + record(11, "\"salary\": 5000.00")
+            + "]";
+
+        BulkWriteResult result = write(body, BulkMode.INSERT);
+
+        assertTrue(result.isComplete());
+        assertEquals(6, result.getReceived());
+        assertEquals(2, result.getInserted());
+        assertEquals(4, result.getFailed());
+        Map<Long, Integer> failedIndexes = new HashMap<>();
+        for (BulkRowError error : result.getErrors()) {
+            assertNotNull(error.getMessage());
+            failedIndexes.put(error.getIndex(), error.getUserId());
+        }
+        assertEquals(new HashSet<>(Arrays.asList(1L, 2L, 3L, 4L)), failedIndexes.keySet());
+        assertEquals(Integer.valueOf(13), failedIndexes.get(3L));
+
+        assertNotNull(employeeMapper.selectById(10));
+        assertEquals("5000.00", employeeMapper.selectById(10).getSalary().toPlainString());
+        assertNotNull(employeeMapper.selectById(11));
+        assertNull(employeeMapper.selectById(12));
+        assertNull(employeeMapper.selectById(13));
+        assertEquals("Existing", employeeMapper.selectById(1).getLastName());
+    }
+
+    @Test
+    void recordsBeforeMalformedJsonAreKept() throws IOException {
+        BulkWriteResult result = write(record(20, "\"salary\": 5000.00") + "\n{\"userId\": 21,", BulkMode.UPSERT);
+
+        assertFalse(result.isComplete());
+        assertNotNull(result.getError());
+        assertEquals(1, result.getInserted());
+        assertNotNull(employeeMapper.selectById(20));
+        assertNull(employeeMapper.selectById(21));
+    }
+
+    private BulkWriteResult write(String body, BulkMode mode) throws IOException {
+        return employeeService.bulkWriteEmployees(
+            new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), mode);
+    }
+
+    private static String record(int userId, String salary) {
+        return "{\"userId\": " + userId + ", \"firstName\": \"First\", \"lastName\": \"Last" + userId + "\", "
+            + salary + ", \"currency\": \"CNY\", \"birthdate\": \"1990-01-01\", \"isActive\": true, \"level\": 1}";
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.learning.bulk;
+
+import com.example.learning.entity.Employee;
+import com.example.learning.mapper.EmployeeMapper;
+import com.example.learning.search.NameSearchIndex;
+import com.example.learning.service.EmployeeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.example.learning.TestEmployees.employee;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+
+/**
+ * 按条件批量修改和删除：没有条件时拒绝执行，不会误改整张表
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class EmployeeConditionWriterTests {
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeMapper employeeMapper;
+
+    @Autowired
+    private NameSearchIndex nameSearchIndex;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        employeeService.truncateTable();
+        for (int id = 1; id <= 3; id++) {
+            employeeService.addEmployee(employee(id, "Last" + id));
+        }
+    }
+
+    @Test
+    void emptyConditionIsRejected() {
+        Employee changes = new Employee();
+        changes.setIsActive(false);
+        assertThrows(IllegalArgumentException.class,
+            () -> employeeService.updateEmployeesByCondition(new Employee(), changes));
+        assertThrows(IllegalArgumentException.class,
+            () -> employeeService.deleteEmployeesByCondition(new Employee()));
+
+        Employee blank = new Employee();
+        blank.setLastName("  ");
+        blank.setCurrency("");
+        assertThrows(IllegalArgumentException.class, () -> employeeService.deleteEmployeesByCondition(blank));
+
+        assertEquals(3, employeeMapper.selectAll().size());
+        for (Employee employee : employeeMapper.selectAll()) {
+            assertEquals(Boolean.TRUE, employee.getIsActive());
+        }
+    }
+
+    @Test
+    void emptyConditionReturns400() throws Exception {
+        assertEquals(400, mockMvc.perform(delete("/api/employees")).andReturn().getResponse().getStatus());
+        assertEquals(400, mockMvc.perform(patch("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"isActive\": false}"))
+            .andReturn().getResponse().getStatus());
+        assertEquals(3, employeeMapper.selectAll().size());
+    }
+
+    @Test
+    void conditionLimitsTheAffectedRows() {
+        Employee condition = new Employee();
+        condition.setLevel((byte) 2);
+        Employee changes = new Employee();
+        changes.setIsActive(false);
+
+        assertEquals(1, employeeService.updateEmployeesByCondition(condition, changes));
+        assertFalse(employeeMapper.selectById(2).getIsActive());
+        assertEquals(Boolean.TRUE, employeeMapper.selectById(1).getIsActive());
+
+        Employee deleteCondition = new Employee();
+        deleteCondition.setLevel((byte) 3);
+        assertEquals(1, employeeService.deleteEmployeesByCondition(deleteCondition));
+        assertEquals(2, employeeMapper.selectAll().size());
+    }
+
+    @Test
+    void lastNameConditionIsMatchedByTheDatabase() {
+        nameSearchIndex.rebuild();
+        // 绕过服务直接修改数据库，索引中2号员工还是原来的姓氏
+        Employee renamed = new Employee();
+        renamed.setUserId(2);
+        renamed.setLastName("Last1b");
+        employeeMapper.update(renamed);
+
+        Employee condition = new Employee();
+        condition.setLastName("Last1");
+        assertEquals(2, employeeService.deleteEmployeesByCondition(condition));
+        assertEquals(1, employeeMapper.selectAll().size());
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.learning.config;
+
+import com.example.learning.datasource.ReadWriteRoutingDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * h2 配置下给内存从库建表
+ * 主库由 spring.sql.init 建表，从库不是单独的Bean，在这里执行同一个建表脚本
+ */
+@Configuration
+@Profile("h2")
+public class H2ReplicaInitializer {
+
+    @Autowired
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    @PostConstruct
+    public void createReplicaSchema() throws SQLException {
+        for (Map.Entry<Object, DataSource> target : routingDataSource.getResolvedDataSources().entrySet()) {
+            if (ReadWriteRoutingDataSource.PRIMARY.equals(target.getKey())) {
+                continue;
+            }
+            try (Connection connection = target.getValue().getConnection()) {
+                ScriptUtils.executeSqlScript(connection, new ClassPathResource("employee.sql"));
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.learning.controller;
+
+import com.example.learning.entity.Employee;
+import com.example.learning.service.EmployeeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+
+import static com.example.learning.TestEmployees.employee;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * 员工接口的条件请求：ETag、304和按 Accept 区分的ETag，以及导出的异步超时时间
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class EmployeeControllerTests {
+
+    private static final String SMILE = "application/x-jackson-smile";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Value("${employee.export.timeout-ms}")
+    private long exportTimeoutMs;
+
+    @BeforeEach
+    void setUp() {
+        employeeService.truncateTable();
+        employeeService.addEmployee(employee(1, "Moreton"));
+    }
+
+    @Test
+    void singleEmployeeReturns304UntilItChanges() throws Exception {
+        MockHttpServletResponse first = perform(get("/api/employees/1"));
+        assertEquals(200, first.getStatus());
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        assertEquals(304, perform(get("/api/employees/1").header(HttpHeaders.IF_NONE_MATCH, etag)).getStatus());
+
+        Employee changes = new Employee();
+        changes.setUserId(1);
+        changes.setSalary(new BigDecimal("6000.00"));
+        employeeService.updateEmployee(changes);
+
+        MockHttpServletResponse changed = perform(get("/api/employees/1").header(HttpHeaders.IF_NONE_MATCH, etag));
+        assertEquals(200, changed.getStatus());
+        assertNotEquals(etag, changed.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void listReturns304UntilTheTableChanges() throws Exception {
+        MockHttpServletResponse first = perform(get("/api/employees"));
+        assertEquals(200, first.getStatus());
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        assertEquals(304, perform(get("/api/employees").header(HttpHeaders.IF_NONE_MATCH, etag)).getStatus());
+
+        employeeService.addEmployee(employee(2, "Crankshaw"));
+
+        assertEquals(200, perform(get("/api/employees").header(HttpHeaders.IF_NONE_MATCH, etag)).getStatus());
+    }
+
+    @Test
+    void etagDiffersPerRepresentation() throws Exception {
+        MockHttpServletResponse json = perform(get("/api/employees/1").header(HttpHeaders.ACCEPT, "application/json"));
+        MockHttpServletResponse smile = perform(get("/api/employees/1").header(HttpHeaders.ACCEPT, SMILE));
+        assertEquals(200, json.getStatus());
+        assertEquals(200, smile.getStatus());
+        assertNotEquals(json.getHeader(HttpHeaders.ETAG), smile.getHeader(HttpHeaders.ETAG));
+        assertTrue(json.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT));
+
+        // JSON的ETag不能让Smile请求得到304
+        MockHttpServletResponse crossed = perform(get("/api/employees/1")
+            .header(HttpHeaders.ACCEPT, SMILE)
+            .header(HttpHeaders.IF_NONE_MATCH, json.getHeader(HttpHeaders.ETAG)));
+        assertEquals(200, crossed.getStatus());
+    }
+
+    @Test
+    void exportHasItsOwnAsyncTimeout() throws Exception {
+        MvcResult export = mockMvc.perform(get("/api/employees/export")).andReturn();
+        assertTrue(export.getRequest().isAsyncStarted());
+        assertEquals(exportTimeoutMs, export.getRequest().getAsyncContext().getTimeout());
+
+        // 其他异步请求不受影响
+        MvcResult async = mockMvc.perform(get("/api/async/employees/1")).andReturn();
+        assertTrue(async.getRequest().isAsyncStarted());
+        assertNotEquals(exportTimeoutMs, async.getRequest().getAsyncContext().getTimeout());
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequestBuilder request) throws Exception {
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.learning.datasource;
+
+import com.example.learning.service.EmployeeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.servlet.http.Cookie;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.example.learning.TestEmployees.employee;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * 读写分离的路由
+ * h2 配置下主库和从库是两个互相独立的内存数据库，从库上查不到主库写入的数据，
+ * 查询结果为空就说明这次查询用的是从库
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class ReadWriteRoutingDataSourceTests {
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        employeeService.truncateTable();
+        employeeService.addEmployee(employee(1, "Moreton"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        PrimaryPinning.end();
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplica() {
+        assertTrue(employeeService.getActiveEmployees().isEmpty());
+    }
+
+    @Test
+    void readsOutsideReadOnlyTransactionsUseThePrimary() {
+        // 按ID查询不在只读事务中，结果会进入缓存，必须读主库
+        assertNotNull(employeeService.getEmployeeById(1));
+    }
+
+    @Test
+    void pinnedCallersUseThePrimary() {
+        PrimaryPinning.begin(true, null);
+        assertEquals(1, employeeService.getActiveEmployees().size());
+    }
+
+    @Test
+    void writingPinsTheRestOfTheRequest() {
+        AtomicBoolean notified = new AtomicBoolean();
+        PrimaryPinning.begin(false, () -> notified.set(true));
+        assertTrue(employeeService.getActiveEmployees().isEmpty());
+        assertFalse(notified.get());
+
+        employeeService.addEmployee(employee(2, "Crankshaw"));
+
+        assertTrue(notified.get());
+        assertEquals(2, employeeService.getActiveEmployees().size());
+    }
+
+    @Test
+    void writeRequestsSetThePinCookie() throws Exception {
+        Cookie cookie = mockMvc.perform(post("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"userId\": 3, \"firstName\": \"First\", \"lastName\": \"Smith\", \"salary\": 5000.00, "
+                    + "\"currency\": \"CNY\", \"birthdate\": \"1990-01-01\", \"isActive\": true, \"level\": 1}"))
+            .andReturn().getResponse().getCookie(ReadYourWritesFilter.COOKIE_NAME);
+        assertNotNull(cookie);
+        assertTrue(Long.parseLong(cookie.getValue()) > System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.learning.metrics;
+
+import com.example.learning.model.SlowQuery;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 慢查询列表：保留时间窗口之内耗时最长的查询
+ */
+class SqlStatisticsTests {
+
+    @Test
+    void slowLogKeepsTheSlowestQueries() {
+        SqlStatistics statistics = statistics(0);
+        record(statistics, 300);
+        record(statistics, 500);
+        record(statistics, 400);
+        // 低于阈值，不进入列表
+        record(statistics, 100);
+
+        assertEquals(Arrays.asList(500.0, 400.0), elapsed(statistics));
+    }
+
+    @Test
+    void slowQueriesOutsideTheWindowExpire() throws InterruptedException {
+        SqlStatistics statistics = statistics(100);
+        record(statistics, 900);
+        record(statistics, 800);
+        Thread.sleep(150);
+
+        // 列表已满，但之前的记录已经超出时间窗口，较快的新查询仍然可以进入
+        record(statistics, 250);
+
+        assertEquals(Collections.singletonList(250.0), elapsed(statistics));
+    }
+
+    private static SqlStatistics statistics(long windowMs) {
+        SqlStatistics statistics = new SqlStatistics();
+        ReflectionTestUtils.setField(statistics, "slowThresholdMs", 200L);
+        ReflectionTestUtils.setField(statistics, "slowLogSize", 2);
+        ReflectionTestUtils.setField(statistics, "slowWindowMs", windowMs);
+        return statistics;
+    }
+
+    private static void record(SqlStatistics statistics, long elapsedMillis) {
+        statistics.record("EmployeeMapper.selectByCondition", "{}", TimeUnit.MILLISECONDS.toNanos(elapsedMillis),
+            1, null, () -> "SELECT 1");
+    }
+
+    private static List<Double> elapsed(SqlStatistics statistics) {
+        List<Double> result = new ArrayList<>();
+        for (SlowQuery slowQuery : statistics.getSlowQueries()) {
+            result.add(slowQuery.getElapsedMillis());
+        }
+        return result;
+    }
+}
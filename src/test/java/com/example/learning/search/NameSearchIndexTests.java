@@ -0,0 +1,132 @@
+package com.example.learning.search;
+
+import com.example.learning.datasource.PrimaryPinning;
+import com.example.learning.entity.Employee;
+import com.example.learning.mapper.EmployeeMapper;
+import com.example.learning.service.EmployeeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.example.learning.TestEmployees.employee;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 姓名三元组索引的匹配语义：规范化之后的子串匹配，和索引更新
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class NameSearchIndexTests {
+
+    @Autowired
+    private NameSearchIndex nameSearchIndex;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeMapper employeeMapper;
+
+    @BeforeEach
+    void setUp() {
+        employeeService.truncateTable();
+        employeeService.addEmployee(employee(1, "   Crankshaw"));
+        employeeService.addEmployee(employee(2, "Müller"));
+        employeeService.addEmployee(employee(3, "abcXbcd"));
+        employeeService.addEmployee(employee(4, "Van  der Berg"));
+        nameSearchIndex.rebuild();
+        assertTrue(nameSearchIndex.isReady());
+    }
+
+    @Test
+    void matchesNormalizedSubstrings() {
+        assertEquals(Collections.singletonList(1), nameSearchIndex.findByLastName("crank", 100));
+        assertEquals(Collections.singletonList(1), nameSearchIndex.findByLastName("SHAW", 100));
+        // 去掉重音符号之后匹配
+        assertEquals(Collections.singletonList(2), nameSearchIndex.findByLastName("muller", 100));
+        assertEquals(Collections.singletonList(2), nameSearchIndex.findByLastName("Müll", 100));
+        // 连续空白合并为一个空格
+        assertEquals(Collections.singletonList(4), nameSearchIndex.findByLastName("van der", 100));
+    }
+
+    @Test
+    void requiresTheGramsToBeContiguous() {
+        // abc 和 bcd 都出现在 abcXbcd 中，但 abcd 不是它的子串
+        assertEquals(Collections.emptyList(), nameSearchIndex.findByLastName("abcd", 100));
+        assertEquals(Collections.singletonList(3), nameSearchIndex.findByLastName("cxb", 100));
+    }
+
+    @Test
+    void shortQueriesAndTooManyMatches() {
+        // 不足三个字符时没有三元组，逐个确认所有员工
+        assertEquals(Arrays.asList(1, 3, 4), nameSearchIndex.findByLastName("a", 100));
+        assertEquals(Collections.singletonList(2), nameSearchIndex.findByLastName("ü", 100));
+        // 匹配的员工超过上限时返回null，交给SQL处理
+        assertNull(nameSearchIndex.findByLastName("r", 1));
+    }
+
+    @Test
+    void followsEmployeeChanges() {
+        Employee changes = new Employee();
+        changes.setUserId(1);
+        changes.setLastName("Moreton");
+        employeeService.updateEmployee(changes);
+        employeeService.deleteEmployee(2);
+
+        assertEquals(Collections.emptyList(), nameSearchIndex.findByLastName("crank", 100));
+        assertEquals(Collections.singletonList(1), nameSearchIndex.findByLastName("oret", 100));
+        assertEquals(Collections.emptyList(), nameSearchIndex.findByLastName("muller", 100));
+    }
+
+    @Test
+    void concurrentRebuildsKeepChangesMadeDuringTheRebuild() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> rebuilds = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                rebuilds.add(pool.submit(nameSearchIndex::rebuild));
+            }
+            employeeService.addEmployee(employee(5, "Crankley"));
+            for (Future<?> rebuild : rebuilds) {
+                rebuild.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue(nameSearchIndex.isReady());
+        assertEquals(Arrays.asList(1, 5), nameSearchIndex.findByLastName("crank", 100));
+        assertEquals(Collections.singletonList(4), nameSearchIndex.findByLastName("van der", 100));
+    }
+
+    @Test
+    void staleIndexEntriesAreFilteredBySql() {
+        // 绕过服务直接修改数据库，索引中还是原来的姓氏
+        Employee changes = new Employee();
+        changes.setUserId(1);
+        changes.setLastName("Moreton");
+        employeeMapper.update(changes);
+        assertEquals(Collections.singletonList(1), nameSearchIndex.findByLastName("rank", 100));
+
+        Employee condition = new Employee();
+        condition.setLastName("rank");
+        PrimaryPinning.begin(true, null);
+        try {
+            assertTrue(employeeService.getEmployeesByLastName("rank").isEmpty());
+            assertEquals(0, employeeService.getTotalCount(condition));
+        } finally {
+            PrimaryPinning.end();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.learning.service.impl;
+
+import com.example.learning.datasource.PrimaryPinning;
+import com.example.learning.entity.Employee;
+import com.example.learning.model.CursorPage;
+import com.example.learning.service.EmployeeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.learning.TestEmployees.employee;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 游标分页
+ * h2 配置下从库是空的，测试中的查询固定使用主库
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class EmployeeServiceImplTests {
+
+    private static final int ROWS = 25;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @BeforeEach
+    void setUp() {
+        employeeService.truncateTable();
+        for (int id = 1; id <= ROWS; id++) {
+            employeeService.addEmployee(employee(id, "Last" + id));
+        }
+        PrimaryPinning.begin(true, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        PrimaryPinning.end();
+    }
+
+    @Test
+    void cursorPagesForwardAndBackward() {
+        CursorPage<Employee> first = employeeService.getEmployeesByCursor(new Employee(), null, 10);
+        assertEquals(range(1, 10), ids(first));
+        assertNull(first.getPrevCursor());
+        assertNotNull(first.getNextCursor());
+
+        CursorPage<Employee> second = employeeService.getEmployeesByCursor(new Employee(), first.getNextCursor(), 10);
+        assertEquals(range(11, 20), ids(second));
+        assertNotNull(second.getPrevCursor());
+
+        CursorPage<Employee> last = employeeService.getEmployeesByCursor(new Employee(), second.getNextCursor(), 10);
+        assertEquals(range(21, 25), ids(last));
+        assertNull(last.getNextCursor());
+
+        CursorPage<Employee> back = employeeService.getEmployeesByCursor(new Employee(), last.getPrevCursor(), 10);
+        assertEquals(range(11, 20), ids(back));
+        assertNotNull(back.getNextCursor());
+        assertNotNull(back.getPrevCursor());
+
+        CursorPage<Employee> backToFirst =
+            employeeService.getEmployeesByCursor(new Employee(), back.getPrevCursor(), 10);
+        assertEquals(range(1, 10), ids(backToFirst));
+        assertNull(backToFirst.getPrevCursor());
+    }
+
+    @Test
+    void cursorPageSizeIsValidatedAndCapped() {
+        assertThrows(IllegalArgumentException.class,
+            () -> employeeService.getEmployeesByCursor(new Employee(), null, 0));
+        assertThrows(IllegalArgumentException.class,
+            () -> employeeService.getEmployeesByCursor(new Employee(), null, -1));
+
+        CursorPage<Employee> page = employeeService.getEmployeesByCursor(new Employee(), null, Integer.MAX_VALUE);
+        assertEquals(1000, page.getPageSize());
+        assertEquals(ROWS, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    private static List<Integer> ids(CursorPage<Employee> page) {
+        List<Integer> ids = new ArrayList<>();
+        for (Employee employee : page.getItems()) {
+            ids.add(employee.getUserId());
+        }
+        return ids;
+    }
+
+    private static List<Integer> range(int from, int to) {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = from; id <= to; id++) {
+            ids.add(id);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.learning.sync;
+
+import com.example.learning.entity.Employee;
+import com.example.learning.entity.SyncRun;
+import com.example.learning.mapper.EmployeeMapper;
+import com.example.learning.mapper.SyncCheckpointMapper;
+import com.example.learning.model.SyncJobStatus;
+import com.example.learning.model.SyncResult;
+import com.example.learning.service.EmployeeService;
+import com.example.learning.service.SyncJobService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.example.learning.TestEmployees.feedRecord;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * 增量同步：内容摘要、断点续传、删除缺失记录，以及已有同步正在执行时的处理
+ * 数据源是一个临时的NDJSON文件，每个数据块2条记录
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class EmployeeSyncPipelineTests {
+
+    private static final int CHUNK_SIZE = 2;
+
+    private static final Path FEED = createFeedFile();
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeMapper employeeMapper;
+
+    @Autowired
+    private SyncCheckpointMapper checkpointMapper;
+
+    @Autowired
+    private SyncSourceFactory syncSourceFactory;
+
+    @Autowired
+    private EmployeeSyncPipeline syncPipeline;
+
+    @Autowired
+    private SyncJobService syncJobService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @DynamicPropertySource
+    static void syncProperties(DynamicPropertyRegistry registry) {
+        registry.add("employee.sync.source", FEED::toString);
+        registry.add("employee.sync.batch-size", () -> CHUNK_SIZE);
+        registry.add("employee.sync.converter-threads", () -> 2);
+        registry.add("employee.sync.writer-threads", () -> 2);
+    }
+
+    @BeforeEach
+    void clearTable() {
+        employeeService.truncateTable();
+    }
+
+    @Test
+    void unchangedRecordsAreSkippedByContentHash() throws IOException {
+        writeFeed(feedRecord(1, "Moreton", "4170.16"), feedRecord(2, "Crankshaw", "5491.49"),
+            feedRecord(3, "Smith", "3000.00"));
+        SyncResult first = employeeService.syncEmployeeIncremental(false);
+        assertTrue(first.isSuccess());
+        assertEquals(3, first.getInserted());
+
+        SyncResult second = employeeService.syncEmployeeIncremental(false);
+        assertTrue(second.isSuccess());
+        assertEquals(0, second.getInserted());
+        assertEquals(0, second.getUpdated());
+        assertEquals(3, second.getUnchanged());
+
+        writeFeed(feedRecord(1, "Moreton", "4170.16"), feedRecord(2, "Crankshaw", "9999.99"),
+            feedRecord(3, "Smith", "3000.00"));
+        SyncResult third = employeeService.syncEmployeeIncremental(false);
+        assertTrue(third.isSuccess());
+        assertEquals(1, third.getUpdated());
+        assertEquals(2, third.getUnchanged());
+        assertEquals("9999.99", employeeMapper.selectById(2).getSalary().toPlainString());
+
+        for (Employee hashed : employeeMapper.selectHashesByIds(Arrays.asList(1, 2, 3))) {
+            assertNotNull(hashed.getContentHash());
+        }
+    }
+
+    @Test
+    void interruptedRunResumesAfterCommittedChunks() throws IOException {
+        writeFeed(feedRecord(1, "Moreton", "4170.16"), feedRecord(2, "Crankshaw", "5491.49"),
+            feedRecord(3, "Smith", "3000.00"), feedRecord(4, "Jones", "3100.00"));
+        // 模拟上一次同步在提交第一个数据块之后中断
+        String fingerprint = syncSourceFactory.getDefaultSource().getFingerprint();
+        SyncRun interrupted = new SyncRun();
+        interrupted.setSource(fingerprint);
+        interrupted.setMode("INCREMENTAL");
+        interrupted.setChunkSize(CHUNK_SIZE);
+        interrupted.setStatus("FAILED");
+        checkpointMapper.insertRun(interrupted);
+        checkpointMapper.insertCheckpoint(interrupted.getRunId(), 0, CHUNK_SIZE);
+
+        SyncResult result = employeeService.syncEmployeeIncremental(false);
+
+        assertTrue(result.isSuccess());
+        assertEquals(interrupted.getRunId(), result.getRunId());
+        assertEquals(1, result.getResumedChunks());
+        assertEquals(2, result.getInserted());
+        // 已提交的数据块被跳过，没有再写入
+        assertNull(employeeMapper.selectById(1));
+        assertNull(employeeMapper.selectById(2));
+        assertNotNull(employeeMapper.selectById(3));
+        assertNotNull(employeeMapper.selectById(4));
+        // 完成后断点被删除，也不会再被当作未完成的同步
+        assertTrue(checkpointMapper.selectCommittedChunks(interrupted.getRunId()).isEmpty());
+        assertNull(checkpointMapper.selectUnfinishedRun(fingerprint, "INCREMENTAL", CHUNK_SIZE));
+    }
+
+    @Test
+    void deleteMissingRemovesRecordsNoLongerInSource() throws IOException {
+        writeFeed(feedRecord(1, "Moreton", "4170.16"), feedRecord(2, "Crankshaw", "5491.49"),
+            feedRecord(3, "Smith", "3000.00"));
+        assertTrue(employeeService.syncEmployeeIncremental(false).isSuccess());
+
+        writeFeed(feedRecord(1, "Moreton", "4170.16"), feedRecord(2, "Crankshaw", "5491.49"));
+        SyncResult result = employeeService.syncEmployeeIncremental(true);
+
+        assertTrue(result.isSuccess());
+        assertEquals(1, result.getDeleted());
+        assertNull(employeeMapper.selectById(3));
+        assertNotNull(employeeMapper.selectById(1));
+    }
+
+    @Test
+    void deleteMissingKeepsRejectedRecords() throws IOException {
+        writeFeed(feedRecord(1, "Moreton", "4170.16"), feedRecord(2, "Crankshaw", "5491.49"),
+            feedRecord(3, "Smith", "3000.00"));
+        assertTrue(employeeService.syncEmployeeIncremental(false).isSuccess());
+
+        // 2号记录缺少姓氏被丢弃，但能读出UserID，不算从数据源中消失
+        writeFeed(feedRecord(1, "Moreton", "4170.16"), feedRecord(2, "", "5491.49"));
+        SyncResult result = employeeService.syncEmployeeIncremental(true);
+
+        assertTrue(result.isSuccess());
+        assertEquals(1, result.getRejected());
+        assertEquals(1, result.getDeleted());
+        assertNotNull(employeeMapper.selectById(2));
+        assertNull(employeeMapper.selectById(3));
+    }
+
+    @Test
+    void deleteMissingIsSkippedWhenARejectedRecordHasNoUserId() throws IOException {
+        writeFeed(feedRecord(1, "Moreton", "4170.16"), feedRecord(2, "Crankshaw", "5491.49"),
+            feedRecord(3, "Smith", "3000.00"));
+        assertTrue(employeeService.syncEmployeeIncremental(false).isSuccess());
+
+        writeFeed(feedRecord(1, "Moreton", "4170.16"), "{\"UserID\":\"two\",\"Lastname\":\"Crankshaw\"}");
+        SyncResult result = employeeService.syncEmployeeIncremental(true);
+
+        assertTrue(result.isSuccess());
+        assertEquals(0, result.getDeleted());
+        assertNotNull(employeeMapper.selectById(2));
+        assertNotNull(employeeMapper.selectById(3));
+    }
+
+    @Test
+    void syncWhileAnotherIsRunningIsReportedAsConflict() throws Exception {
+        writeFeed(feedRecord(1, "Moreton", "4170.16"));
+        // 模拟另一个同步正在执行
+        AtomicBoolean running = (AtomicBoolean) ReflectionTestUtils.getField(syncPipeline, "running");
+        running.set(true);
+        try {
+            SyncResult result = employeeService.syncEmployeeIncremental(false);
+            assertTrue(result.isAlreadyRunning());
+            assertNotNull(result.getMessage());
+
+            assertEquals(409, mockMvc.perform(get("/api/employees/sync")).andReturn().getResponse().getStatus());
+            assertEquals(409, mockMvc.perform(post("/api/employees/sync/incremental"))
+                .andReturn().getResponse().getStatus());
+
+            String jobId = syncJobService.submit(true, false).getJobId();
+            SyncJobStatus status = syncJobService.getStatus(jobId);
+            for (int i = 0; i < 100 && status.getFinishedAt() == null; i++) {
+                Thread.sleep(50);
+                status = syncJobService.getStatus(jobId);
+            }
+            assertEquals("REJECTED", status.getState());
+        } finally {
+            running.set(false);
+        }
+        assertNull(employeeMapper.selectById(1));
+    }
+
+    private static Path createFeedFile() {
+        try {
+            Path directory = Files.createTempDirectory("employee-sync-test");
+            directory.toFile().deleteOnExit();
+            Path feed = directory.resolve("feed.ndjson");
+            feed.toFile().deleteOnExit();
+            return feed;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeFeed(String... lines) throws IOException {
+        List<String> records = Arrays.asList(lines);
+        Files.write(FEED, records, StandardCharsets.UTF_8);
+    }
+}